@@ -0,0 +1,437 @@
+import classification.BatchClassifier;
+import classification.BitsetRouting;
+import classification.C45;
+import classification.Classifier;
+import classification.ContingencyTable;
+import classification.FlatDecisionTree;
+import classification.ID3;
+import classification.InductionEngine;
+import classification.KNN;
+import classification.KnnClassifier;
+import classification.LookupTableClassifier;
+import classification.ModelFile;
+import classification.ModelRegistry;
+import classification.PredictionCache;
+import classification.TreeCompiler;
+import classification.TreeModel;
+import data.BitmapIndex;
+import data.CSVFileReader;
+import data.DataManager;
+import data.Mushroom;
+import data.MushroomTable;
+import data.Node;
+import data.FieldHandler;
+import data.Schema;
+import enums.Class_Label;
+import server.ScoringServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Small throughput benchmarks for the data loading and classification code.
+ * Every benchmark is warmed up before it is timed. An optional argument gives the data file to use.
+ */
+public class Benchmark {
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int TIMED_ROUNDS = 50;
+    // a single pass over a small data set is too short to time
+    private static final int INFERENCE_PASSES = 20;
+    // concurrent clients of the scoring server, and requests each of them sends per round
+    private static final int SERVER_CLIENTS = 8;
+    private static final int SERVER_REQUESTS = 50;
+    private static final int CACHE_CAPACITY = 1 << 14;
+
+    // results of the timed tasks end up here, so the JIT can't remove the work
+    private static volatile long blackhole;
+
+    public static void main(String[] args) throws IOException {
+        // see ScoringServer, without it every request of the server benchmark waits for a delayed ack
+        if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        String file = args.length > 0 ? args[0] : "Resources/agaricus-lepiotadata.txt";
+        // every benchmark loads the file again, a file that can't be read would only give empty results
+        if(!Files.isReadable(Path.of(file))) {
+            System.err.println("Could not read the data file " + file);
+            System.exit(1);
+        }
+
+        System.out.println("*** CSV loading: " + file + " ***");
+        benchmarkCsvReading(file);
+
+        System.out.println("\n*** Tree induction ***");
+        benchmarkTraining(file);
+
+        System.out.println("\n*** Entropy kernel ***");
+        benchmarkEntropy(file);
+
+        System.out.println("\n*** Inference ***");
+        benchmarkInference(file);
+
+        System.out.println("\n*** Prediction cache ***");
+        benchmarkCache(file);
+
+        System.out.println("\n*** Scoring server ***");
+        benchmarkServer(file);
+    }
+
+    private static void benchmarkCsvReading(String file) throws IOException {
+        int rows = CSVFileReader.readDataFile(file, ",", "", false).length;
+
+        report("String.split reader", rows, () -> {
+            String[][] data = CSVFileReader.readDataFile(file, ",", "", false);
+            return data.length;
+        });
+
+        report("byte level reader", rows, () -> {
+            long[] checksum = new long[1];
+            CSVFileReader.readDataFile(file, ',', false, new FieldHandler() {
+                @Override
+                public void field(int row, int column, byte[] buffer, int offset, int length) {
+                    checksum[0] += buffer[offset];
+                }
+            });
+            return checksum[0];
+        });
+
+        report("DataManager.LoadData", rows, () -> DataManager.LoadData(file).size());
+    }
+
+    private static void benchmarkTraining(String file) throws IOException {
+        List<Mushroom> mushrooms = DataManager.LoadData(file);
+
+        report("ID3 training", mushrooms.size(), () ->
+                new ID3(mushrooms, Mushroom.getAttributeList()).getDecisionTree().childCount());
+
+        report("C45 training", mushrooms.size(), () ->
+                new C45(mushrooms, Mushroom.getAttributeList()).getDecisionTree().childCount());
+
+        MushroomTable table = MushroomTable.of(mushrooms);
+        report("ID3 training (table)", table.size(), () ->
+                new ID3(table, Mushroom.getAttributeList(), false).getDecisionTree().childCount());
+
+        report("ID3 training (parallel)", table.size(), () ->
+                new ID3(table, Mushroom.getAttributeList(), true).getDecisionTree().childCount());
+
+        report("ID3 training (level-wise)", table.size(), () ->
+                new ID3(table, Mushroom.getAttributeList(), InductionEngine.Strategy.LEVEL_WISE).getDecisionTree().childCount());
+
+        report("ID3 training (bitmap)", table.size(), () ->
+                new ID3(table, Mushroom.getAttributeList(), InductionEngine.Strategy.BITMAP).getDecisionTree().childCount());
+    }
+
+    // every round classifies the table INFERENCE_PASSES times, every classifier has its own loop so the JIT
+    // can inline each of them
+    private static void benchmarkInference(String file) throws IOException {
+        MushroomTable table = DataManager.LoadTable(file);
+        int rows = table.size() * INFERENCE_PASSES;
+        Node tree = new C45(table, Mushroom.getAttributeList()).getDecisionTree();
+
+        double nodeTree = report("Node tree", rows, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(int row = 0; row < table.size(); row++) {
+                    if(ID3.classify(tree, table, row) == Class_Label.poisonous) poisonous++;
+                }
+            }
+            return poisonous;
+        });
+
+        // the tree compiled into a class of its own, compared with walking the Node tree it was made from
+        Classifier generated = null;
+        try {
+            generated = TreeCompiler.compile(tree);
+        } catch(IllegalStateException e) {
+            System.out.println("generated classifier skipped: " + e.getMessage());
+        }
+        if(generated != null) {
+            Classifier compiled = generated;
+            double rate = report("generated classifier", rows, () -> {
+                long poisonous = 0;
+                for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                    for(int row = 0; row < table.size(); row++) {
+                        poisonous += compiled.classifyOrdinal(table, row);
+                    }
+                }
+                return poisonous;
+            });
+            System.out.println(String.format("%-30s %15.2fx ID3.classify", "", rate / nodeTree));
+        }
+
+        TreeModel model = TreeModel.of(tree);
+        report("TreeModel", rows, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(int row = 0; row < table.size(); row++) {
+                    if(model.classify(table, row) == Class_Label.poisonous) poisonous++;
+                }
+            }
+            return poisonous;
+        });
+
+        FlatDecisionTree flat = FlatDecisionTree.of(tree);
+        report("FlatDecisionTree", rows, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(int row = 0; row < table.size(); row++) {
+                    poisonous += flat.classifyOrdinal(table, row);
+                }
+            }
+            return poisonous;
+        });
+
+        report("BatchClassifier (flat)", rows, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(byte label : BatchClassifier.classify(flat, table)) poisonous += label;
+            }
+            return poisonous;
+        });
+
+        BitmapIndex index = BitmapIndex.of(table);
+        report("BitsetRouting", rows, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(byte label : BitsetRouting.classify(tree, index)) poisonous += label;
+            }
+            return poisonous;
+        });
+
+        report("BitsetRouting (with index)", rows, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(byte label : BitsetRouting.classify(tree, table)) poisonous += label;
+            }
+            return poisonous;
+        });
+
+        // the tree written to a model file, loading only maps the file and checks the header
+        Path modelFile = Files.createTempFile("tree", ".model");
+        try {
+            ModelFile.writeTree(modelFile, tree);
+            report("model file load", 1, "loads", () -> ModelFile.load(modelFile).classifyOrdinal(table, 0));
+            Classifier mapped = ModelFile.load(modelFile);
+            report("mapped model file", rows, () -> {
+                long poisonous = 0;
+                for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                    for(int row = 0; row < table.size(); row++) {
+                        poisonous += mapped.classifyOrdinal(table, row);
+                    }
+                }
+                return poisonous;
+            });
+        } finally {
+            Files.deleteIfExists(modelFile);
+        }
+
+        // the C45 tree splits on too many attributes for a lookup table, the ID3 tree doesn't
+        Node id3Tree = new ID3(table, Mushroom.getAttributeList()).getDecisionTree();
+        FlatDecisionTree id3Flat = FlatDecisionTree.of(id3Tree);
+        report("FlatDecisionTree (ID3)", rows, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(int row = 0; row < table.size(); row++) {
+                    poisonous += id3Flat.classifyOrdinal(table, row);
+                }
+            }
+            return poisonous;
+        });
+
+        if(LookupTableClassifier.fits(id3Tree, LookupTableClassifier.DEFAULT_BUDGET)) {
+            LookupTableClassifier lookup = LookupTableClassifier.of(id3Tree, LookupTableClassifier.DEFAULT_BUDGET);
+            report("lookup table (ID3)", rows, () -> {
+                long poisonous = 0;
+                for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                    for(int row = 0; row < table.size(); row++) {
+                        poisonous += lookup.classifyOrdinal(table, row);
+                    }
+                }
+                return poisonous;
+            });
+        }
+    }
+
+    // steady state, the cache is filled while warming up
+    private static void benchmarkCache(String file) throws IOException {
+        MushroomTable table = DataManager.LoadTable(file);
+        List<Mushroom> mushrooms = table.toMushroomList();
+        List<Mushroom> trainingSet = new ArrayList<>();
+        for(int i = 0; i < mushrooms.size(); i += 5) {
+            trainingSet.add(mushrooms.get(i));
+        }
+        KNN knn = new KNN(trainingSet, Mushroom.getAttributeList(), 3);
+        KnnClassifier knnClassifier = KnnClassifier.of(knn, knn.classify());
+
+        report("KNN", table.size(), () -> {
+            long poisonous = 0;
+            for(int row = 0; row < table.size(); row++) {
+                poisonous += knnClassifier.classifyOrdinal(table, row);
+            }
+            return poisonous;
+        });
+
+        PredictionCache cachedKnn = new PredictionCache(knnClassifier, CACHE_CAPACITY);
+        report("KNN (cached)", table.size(), () -> {
+            long poisonous = 0;
+            for(int row = 0; row < table.size(); row++) {
+                poisonous += cachedKnn.classifyOrdinal(table, row);
+            }
+            return poisonous;
+        });
+        System.out.println("  " + cachedKnn);
+
+        // a tree is about as cheap as a lookup, but reads fewer attributes, so more rows share an entry
+        FlatDecisionTree flat = FlatDecisionTree.of(new C45(table, Mushroom.getAttributeList()).getDecisionTree());
+        PredictionCache cachedFlat = new PredictionCache(flat, CACHE_CAPACITY);
+        report("FlatDecisionTree (cached)", table.size() * INFERENCE_PASSES, () -> {
+            long poisonous = 0;
+            for(int pass = 0; pass < INFERENCE_PASSES; pass++) {
+                for(int row = 0; row < table.size(); row++) {
+                    poisonous += cachedFlat.classifyOrdinal(table, row);
+                }
+            }
+            return poisonous;
+        });
+        System.out.println("  " + cachedFlat);
+    }
+
+    // clients on the loopback interface sending single rows at the same time, so the server gets to batch them
+    private static void benchmarkServer(String file) throws IOException {
+        MushroomTable table = DataManager.LoadTable(file);
+        List<String> lines = Files.readAllLines(Path.of(file));
+        Classifier classifier = FlatDecisionTree.of(new C45(table, Mushroom.getAttributeList()).getDecisionTree());
+        ModelRegistry<Classifier> models = new ModelRegistry<>(classifier);
+
+        try(ScoringServer server = new ScoringServer(models, 0)) {
+            server.start();
+            URI uri = URI.create("http://localhost:" + server.getPort() + "/classify");
+            HttpClient client = HttpClient.newHttpClient();
+            ExecutorService clients = Executors.newFixedThreadPool(SERVER_CLIENTS + 1);
+            try {
+                reportRequests("single row requests", clients, client, uri, lines);
+                System.out.print(server.getStats());
+
+                // the same model published again every millisecond, each time waiting for the old version to drain
+                AtomicBoolean swapping = new AtomicBoolean(true);
+                Future<?> swapper = clients.submit(() -> {
+                    while(swapping.get()) {
+                        models.publish(classifier).awaitDrained(1, TimeUnit.SECONDS);
+                        Thread.sleep(1);
+                    }
+                    return null;
+                });
+                reportRequests("single row requests (swaps)", clients, client, uri, lines);
+                swapping.set(false);
+                swapper.get();
+                System.out.print(server.getStats());
+            } catch(InterruptedException | ExecutionException e) {
+                throw new IOException(e);
+            } finally {
+                clients.shutdown();
+            }
+        }
+    }
+
+    private static void reportRequests(String name, ExecutorService clients, HttpClient client, URI uri, List<String> lines) throws IOException {
+        report(name, SERVER_CLIENTS * SERVER_REQUESTS, "requests", () -> {
+            List<Future<Long>> results = new ArrayList<>();
+            for(int c = 0; c < SERVER_CLIENTS; c++) {
+                int first = c * SERVER_REQUESTS;
+                results.add(clients.submit(() -> {
+                    long poisonous = 0;
+                    for(int i = first; i < first + SERVER_REQUESTS; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .POST(HttpRequest.BodyPublishers.ofString(lines.get(i % lines.size()))).build();
+                        if(client.send(request, HttpResponse.BodyHandlers.ofString()).body().startsWith("p")) poisonous++;
+                    }
+                    return poisonous;
+                }));
+            }
+            long poisonous = 0;
+            try {
+                for(Future<Long> result : results) poisonous += result.get();
+            } catch(InterruptedException | ExecutionException e) {
+                throw new IOException(e);
+            }
+            return poisonous;
+        });
+    }
+
+    private static void benchmarkEntropy(String file) throws IOException {
+        List<Mushroom> mushrooms = DataManager.LoadData(file);
+        ContingencyTable counts = new ContingencyTable(mushrooms, Schema.attributeMask(Mushroom.getAttributeList()));
+
+        report("Math.log information gain", Schema.ATTRIBUTE_COUNT, "gains", () -> {
+            double sum = 0.0;
+            for(int attrId = 0; attrId < Schema.ATTRIBUTE_COUNT; attrId++) sum += mathLogInformationGain(counts, attrId);
+            return Double.doubleToLongBits(sum);
+        });
+
+        report("table information gain", Schema.ATTRIBUTE_COUNT, "gains", () -> {
+            double sum = 0.0;
+            for(int attrId = 0; attrId < Schema.ATTRIBUTE_COUNT; attrId++) sum += counts.informationGain(attrId);
+            return Double.doubleToLongBits(sum);
+        });
+    }
+
+    // information gain computed the textbook way, with a division and a Math.log for every count
+    private static double mathLogInformationGain(ContingencyTable counts, int attrId) {
+        double infoForAttribute = 0.0;
+        for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+            int total = counts.valueCount(attrId, ordinal);
+            double info = 0.0;
+            for(int label = 0; label < Schema.CLASS_COUNT; label++) {
+                double p = (double) counts.count(attrId, ordinal, label) / total;
+                if(p > 0) info -= p * (Math.log(p) / Math.log(2));
+            }
+            infoForAttribute += (double) total / counts.size() * info;
+        }
+
+        double entropy = 0.0;
+        for(int label = 0; label < Schema.CLASS_COUNT; label++) {
+            double p = (double) counts.classCount(label) / counts.size();
+            if(p > 0) entropy -= p * (Math.log(p) / Math.log(2));
+        }
+        return entropy - infoForAttribute;
+    }
+
+    private static double report(String name, int rows, Task task) throws IOException {
+        return report(name, rows, "rows", task);
+    }
+
+    /**
+     * Runs the task a number of times and prints how many units (rows, gains, ...) per second it got through.
+     * @return the units per second
+     */
+    private static double report(String name, int units, String unit, Task task) throws IOException {
+        long sink = 0;
+        for(int i = 0; i < WARMUP_ROUNDS; i++) sink += task.run();
+
+        long start = System.nanoTime();
+        for(int i = 0; i < TIMED_ROUNDS; i++) sink += task.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double unitsPerSecond = (double) units * TIMED_ROUNDS / seconds;
+        blackhole = sink;
+        System.out.println(String.format("%-30s %,15.0f %s/sec", name, unitsPerSecond, unit));
+        return unitsPerSecond;
+    }
+
+    private interface Task {
+        long run() throws IOException;
+    }
+}
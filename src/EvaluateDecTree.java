@@ -1,21 +1,29 @@
+import classification.BatchClassifier;
+import classification.Classifier;
+import classification.FlatDecisionTree;
 import classification.ID3;
 import data.Mushroom;
+import data.MushroomTable;
 import data.Node;
 import enums.Class_Label;
 import java.util.List;
 
 public class EvaluateDecTree {
 
+    /**
+     * Evaluates a trained tree on test data. A mushroom the tree has no class label for counts as neither true
+     * nor false but still counts in the total, so then the percentages add up to less than 100%.
+     */
     public static String classify(Node node, List<Mushroom> testdata) {
         double total = testdata.size();
         double truePos = 0;
         double trueNeg = 0;
         double falsePos = 0;
         double falseNeg = 0;
-        double trueTotal, falseTotal,truePosPerc, trueNegPerc, falsePosPerc, falseNegPerc, trueTotalPerc, falseTotalPerc;
 
         for(Mushroom mush : testdata) {
             Object prediction = ID3.classify(node, mush);
+            if(prediction == null) continue;
             Object actual = mush.getAttributeValue(Class_Label.class);
 
             if(prediction.equals(Class_Label.edible)) {
@@ -30,6 +38,47 @@ public class EvaluateDecTree {
             }
         }
 
+        return report(total, truePos, trueNeg, falsePos, falseNeg);
+    }
+
+    /**
+     * Same evaluation as above for test data in a column based table.
+     */
+    public static String classify(Node node, MushroomTable testdata) {
+        return classify(FlatDecisionTree.of(node), testdata);
+    }
+
+    /**
+     * Evaluates a trained model on a column based table, the rows are classified as one batch.
+     * Rows without a predicted class label are treated as above.
+     */
+    public static String classify(Classifier classifier, MushroomTable testdata) {
+        byte[] predictions = BatchClassifier.classify(classifier, testdata);
+        int truePos = 0;
+        int trueNeg = 0;
+        int falsePos = 0;
+        int falseNeg = 0;
+
+        for(int row = 0; row < predictions.length; row++) {
+            if(predictions[row] < 0) continue;
+            boolean predictedPoisonous = predictions[row] == Class_Label.poisonous.ordinal();
+            boolean actualPoisonous = testdata.isPoisonous(row);
+
+            if(!predictedPoisonous) {
+                if(!actualPoisonous) truePos++;
+                else falsePos++;
+            } else {
+                if(!actualPoisonous) falseNeg++;
+                else trueNeg++;
+            }
+        }
+
+        return report(predictions.length, truePos, trueNeg, falsePos, falseNeg);
+    }
+
+    private static String report(double total, double truePos, double trueNeg, double falsePos, double falseNeg) {
+        double trueTotal, falseTotal,truePosPerc, trueNegPerc, falsePosPerc, falseNegPerc, trueTotalPerc, falseTotalPerc;
+
         trueTotal = trueNeg + truePos;
         falseTotal = falseNeg + falsePos;
 
@@ -0,0 +1,93 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import enums.Class_Label;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Classifies whole data sets at once. The predictions come back as a byte[] of class label ordinals
+ * (-1 where the model has no label), one per row. Large batches are split into chunks that are classified
+ * in parallel on the common fork/join pool, small ones are classified on the calling thread.
+ */
+public class BatchClassifier {
+    // batches with fewer rows than this are classified sequentially, and no task gets fewer rows than this
+    public static final int PARALLEL_CUTOFF = 8192;
+
+    /**
+     * Classifies every row of a column based table.
+     * @param classifier the trained model
+     * @param table rows to classify
+     * @return ordinal of the predicted class label of every row
+     */
+    public static byte[] classify(Classifier classifier, MushroomTable table) {
+        byte[] labels = new byte[table.size()];
+        run(labels.length, (from, to) -> {
+            for(int row = from; row < to; row++) {
+                labels[row] = (byte) classifier.classifyOrdinal(table, row);
+            }
+        });
+        return labels;
+    }
+
+    /**
+     * Classifies every mushroom of a list, the list should support fast random access.
+     * @param classifier the trained model
+     * @param mushrooms mushrooms to classify
+     * @return ordinal of the predicted class label of every mushroom
+     */
+    public static byte[] classify(Classifier classifier, List<Mushroom> mushrooms) {
+        byte[] labels = new byte[mushrooms.size()];
+        run(labels.length, (from, to) -> {
+            for(int i = from; i < to; i++) {
+                Class_Label label = classifier.classify(mushrooms.get(i));
+                labels[i] = (byte) (label == null ? -1 : label.ordinal());
+            }
+        });
+        return labels;
+    }
+
+    private static void run(int size, Range work) {
+        if(size < PARALLEL_CUTOFF) {
+            work.classify(0, size);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BatchTask(work, 0, size));
+        }
+    }
+
+    /**
+     * Classifies the rows [from, to) of a batch and writes their labels.
+     */
+    private interface Range {
+        void classify(int from, int to);
+    }
+
+    /**
+     * Classifies a range of a batch, splitting it in halves as long as they are large enough.
+     * The halves write to different parts of the output array.
+     */
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Range work;
+        private final int from;
+        private final int to;
+
+        BatchTask(Range work, int from, int to) {
+            this.work = work;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from < 2 * PARALLEL_CUTOFF) {
+                work.classify(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(work, from, middle), new BatchTask(work, middle, to));
+        }
+    }
+}
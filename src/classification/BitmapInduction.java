@@ -0,0 +1,99 @@
+package classification;
+
+import data.BitmapIndex;
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+
+/**
+ * Grows a decision tree depth first on a bitmap index of the training data (see data.BitmapIndex).
+ * The rows of a node are a bit set, the rows of a child are the node's set AND the bit set of the child's
+ * attribute value, and every count needed to select an attribute is a popcount, so no row is looked at
+ * while the tree grows. Only the leaves write their rows to the row index array of the training data.
+ * Gives the same tree as InductionEngine building depth first.
+ */
+class BitmapInduction {
+    private final TrainingData data;
+    private final BitmapIndex index;
+    private final InductionEngine.AttributeSelection selection;
+    private final StoppingCheck stopping;
+
+    BitmapInduction(TrainingData data, InductionEngine.AttributeSelection selection, StoppingCheck stopping) {
+        this.data = data;
+        this.index = BitmapIndex.of(data.getTable());
+        this.selection = selection;
+        this.stopping = stopping;
+    }
+
+    /**
+     * Builds the tree for all the training data.
+     * @param attributes mask of the attributes the tree may split on
+     * @return root node of the decision tree
+     */
+    Node generateDecisionTree(long attributes) {
+        Node root = generateDecisionTree(index.allRows(), 0, attributes, 0);
+        root.setParent(root);
+        return root;
+    }
+
+    // return root node of the subtree for a set of rows, the node's range of the row index array starts at offset
+    private Node generateDecisionTree(long[] rows, int offset, long attributes, int depth) {
+        int size = BitmapIndex.cardinality(rows);
+        int poisonous = index.countPoisonous(rows);
+        Node node = new Node(offset, size, attributes);
+
+        // if all tuples have same class label, return node with that class label
+        if(poisonous == 0 || poisonous == size) {
+            node.setLabel(poisonous == 0 ? Class_Label.edible : Class_Label.poisonous);
+            return leaf(node, rows);
+        }
+
+        // if there's no attributes or a stopping rule cuts the node off, return node with majority class label
+        Class_Label majority = size - poisonous > poisonous ? Class_Label.edible : Class_Label.poisonous;
+        if(attributes == 0L || stopping.stopBeforeCounting(depth, size)) {
+            node.setLabel(majority);
+            return leaf(node, rows);
+        }
+
+        // get best attribute to split by, if none is good enough return node with majority class label
+        ContingencyTable counts = new ContingencyTable(index, rows, attributes);
+        int attrId = selection.select(counts, attributes);
+        if(attrId < 0 || stopping.stopAfterSelection(counts, attrId)) {
+            node.setLabel(majority);
+            return leaf(node, rows);
+        }
+        node.setSplittingCriterion(Schema.attribute(attrId));
+
+        // the children may split on every attribute of this node except the splitting criterion
+        long childAttributes = attributes & ~(1L << attrId);
+        for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+            Node child;
+            if(counts.valueCount(attrId, ordinal) == 0) {
+                // creating leaf node with empty att list, because it's not needed further
+                child = new Node(offset, 0, 0L);
+                // setting class label of leaf to majority
+                child.setLabel(majority);
+                child.setLeaf();
+            } else {
+                long[] valueBits = index.valueBits(attrId, ordinal);
+                long[] childRows = new long[rows.length];
+                for(int i = 0; i < rows.length; i++) {
+                    childRows[i] = rows[i] & valueBits[i];
+                }
+                child = generateDecisionTree(childRows, offset, childAttributes, depth + 1);
+                offset += child.getLength();
+            }
+            child.setValue(Schema.value(attrId, ordinal));
+            child.setParent(node);
+            node.addChild(child);
+        }
+        return node;
+    }
+
+    // makes the node a leaf and puts its rows at its range of the row index array
+    private Node leaf(Node node, long[] rows) {
+        node.setLeaf();
+        data.place(node.getOffset(), rows);
+        return node;
+    }
+}
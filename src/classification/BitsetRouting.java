@@ -0,0 +1,97 @@
+package classification;
+
+import data.BitmapIndex;
+import data.MushroomTable;
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+
+/**
+ * Classifies a whole batch by pushing it through the tree at once instead of walking the tree for every row.
+ * The rows that reach a node are a bit set; at a split they are divided among the children by ANDing the set
+ * with the bitmap of every value of the split attribute (see data.BitmapIndex), and a leaf writes its label
+ * for every row of its set. The work grows with the size of the tree times the words of the batch rather than
+ * with the rows times the depth, and only the words between the first and last row of a set are visited.
+ */
+public class BitsetRouting {
+    private final BitmapIndex index;
+    private final byte[] labels;
+    // bit set of the rows at every depth of the tree, reused by the siblings at that depth
+    private long[][] scratch = new long[0][];
+
+    private BitsetRouting(BitmapIndex index) {
+        this.index = index;
+        this.labels = new byte[index.size()];
+    }
+
+    /**
+     * Classifies every row of a column based table.
+     * @param root root node of the decision tree
+     * @param table rows to classify
+     * @return ordinal of the predicted class label of every row, -1 where the tree has none
+     */
+    public static byte[] classify(Node root, MushroomTable table) {
+        return classify(root, BitmapIndex.of(table));
+    }
+
+    /**
+     * Classifies every row of a bitmap index.
+     * @param root root node of the decision tree
+     * @param index bitmap index of the rows to classify
+     * @return ordinal of the predicted class label of every row, -1 where the tree has none
+     */
+    public static byte[] classify(Node root, BitmapIndex index) {
+        BitsetRouting routing = new BitsetRouting(index);
+        routing.route(root, index.allRows(), 0, index.words(), 0);
+        return routing.labels;
+    }
+
+    // sends the rows in words [first, last) of a set down the subtree of a node
+    private void route(Node node, long[] rows, int first, int last, int depth) {
+        int attrId = node.isLeaf() ? -1 : node.getSplitAttributeId();
+        if(attrId < 0) {
+            write(rows, first, last, node.getM_Class());
+            return;
+        }
+
+        if(scratch.length == depth) {
+            long[][] grown = new long[depth + 1][];
+            System.arraycopy(scratch, 0, grown, 0, depth);
+            grown[depth] = new long[index.words()];
+            scratch = grown;
+        }
+        long[] childRows = scratch[depth];
+
+        for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+            long[] valueBits = index.valueBits(attrId, ordinal);
+            int childFirst = last;
+            int childLast = first;
+            for(int i = first; i < last; i++) {
+                childRows[i] = rows[i] & valueBits[i];
+                if(childRows[i] != 0L) {
+                    childFirst = Math.min(childFirst, i);
+                    childLast = i + 1;
+                }
+            }
+            if(childFirst >= childLast) continue;
+
+            // values without a child get the node's own label, like ID3.findClass
+            Node child = node.getChild(ordinal);
+            if(child == null) {
+                write(childRows, childFirst, childLast, node.getM_Class());
+            } else {
+                route(child, childRows, childFirst, childLast, depth + 1);
+            }
+        }
+    }
+
+    // writes the label for every row of a set
+    private void write(long[] rows, int first, int last, Class_Label label) {
+        byte ordinal = (byte) (label == null ? -1 : label.ordinal());
+        for(int word = first; word < last; word++) {
+            for(long bits = rows[word]; bits != 0L; bits &= bits - 1) {
+                labels[(word << 6) + Long.numberOfTrailingZeros(bits)] = ordinal;
+            }
+        }
+    }
+}
@@ -1,102 +1,117 @@
 package classification;
 
-import data.DataManager;
 import data.Mushroom;
+import data.MushroomTable;
 import data.Node;
+import data.Schema;
 import enums.*;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @SuppressWarnings("Duplicates")
 //The Gain Ratio addition
 public class C45 {
-    private List<Object> global_attributes_list;
     private Node root;
+    private Map<StoppingRules.Rule, Integer> stoppingCuts;
+    private TreeStats unprunedStats;
+    private TreeStats stats;
     private double gainRatioAverage;
 
 
     public C45(List<Mushroom> dataset, List<Object> attributes_list) {
-        this.global_attributes_list = attributes_list;
-        root = generateDecisionTree(dataset, global_attributes_list);
-        root.setParent(root);
-        gainRatioAverage = calculateInfoAverage(informationGain(dataset, attributes_list));
+        this(MushroomTable.of(dataset), attributes_list);
     }
 
-    public Node getDecisionTree() {
-        return root;
+    /**
+     * Builds the decision tree from data in a column based table.
+     * All nodes share one array of row indices, which is partitioned in place as the tree grows.
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     */
+    public C45(MushroomTable dataset, List<Object> attributes_list) {
+        this(dataset, attributes_list, false);
     }
 
-    // should return root node
-    private Node generateDecisionTree(List<Mushroom> data, List<Object> attributes_list) {
-        //Creating a data.Node
-        Node node = new Node(data, attributes_list);
+    /**
+     * Builds the decision tree, optionally building subtrees in parallel on the common fork/join pool.
+     * Both ways give the same tree.
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     * @param parallel whether to build subtrees in parallel
+     */
+    public C45(MushroomTable dataset, List<Object> attributes_list, boolean parallel) {
+        this(dataset, attributes_list, parallel ? InductionEngine.Strategy.PARALLEL : InductionEngine.Strategy.DEPTH_FIRST);
+    }
 
-        // if all tuples have same class label, return node with that class label
-        if(calculateEntropyForSet(data) == 0.0) {
-            node.setLabel(data.get(0).getAttributeValue(Class_Label.class));
-            return node;
-        }
+    /**
+     * Builds the decision tree in the given order, see InductionEngine.Strategy. All of them give the same tree.
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     * @param strategy the order to grow the tree in
+     */
+    public C45(MushroomTable dataset, List<Object> attributes_list, InductionEngine.Strategy strategy) {
+        this(dataset, attributes_list, strategy, StoppingRules.NONE);
+    }
+
+    /**
+     * Builds the decision tree in the given order, stopping early where the rules say so. With a max number of
+     * nodes PARALLEL builds the tree sequentially and LEVEL_WISE may give another tree (see InductionEngine.Strategy).
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     * @param strategy the order to grow the tree in
+     * @param rules limits on how far the tree is grown
+     */
+    public C45(MushroomTable dataset, List<Object> attributes_list, InductionEngine.Strategy strategy, StoppingRules rules) {
+        this(dataset, attributes_list, strategy, rules, false);
+    }
 
-        // if there's no attributes, return node with majority class label
-        if(global_attributes_list.isEmpty()) {
-            node.setLabel(getMajorityClassLabel(data));
-            return node;
+    /**
+     * Builds the decision tree and optionally prunes it with pessimistic error estimates (see PessimisticPruning).
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     * @param strategy the order to grow the tree in
+     * @param rules limits on how far the tree is grown
+     * @param prune whether to prune the tree after it is built
+     */
+    public C45(MushroomTable dataset, List<Object> attributes_list, InductionEngine.Strategy strategy, StoppingRules rules,
+               boolean prune) {
+        TrainingData training = new TrainingData(dataset);
+        InductionEngine engine = new InductionEngine(training, this::attributeSelection, rules);
+        root = engine.generateDecisionTree(attributes_list, strategy);
+        stoppingCuts = engine.getCuts();
+        unprunedStats = TreeStats.of(root);
+        if(prune) {
+            new PessimisticPruning(training).prune(root);
         }
+        stats = prune ? TreeStats.of(root) : unprunedStats;
+        long mask = Schema.attributeMask(attributes_list);
+        gainRatioAverage = calculateInfoAverage(mask, informationGain(training.count(0, training.size(), mask), mask));
+    }
 
-        // get best attribute to split by
-        Object splitting_criterion = attributeSelection(data, attributes_list);
+    public Node getDecisionTree() {
+        return root;
+    }
 
-        // ***GainRatio thing: if no attributes information gain is bigger than the average,
-        // then return the node with the majority class label
-        if(splitting_criterion == null){
-            node.setLabel(getMajorityClassLabel(data));
-            return node;
-        }
-        //ID3 algorithm continues
-        node.setSplittingCriterion(splitting_criterion);
-        global_attributes_list.remove(splitting_criterion);
-
-        // partition data into sets per value and add mushrooms with that value...
-        Map<Object, List<Mushroom>> partitions = new HashMap<>();
-        for(Object value : ((Class) splitting_criterion).getEnumConstants()) {
-            // looking at one value for the attribute selected as splitting criterion
-            partitions.put(value, new ArrayList<>());
-            for(Mushroom mush : data) {
-                if(mush.getAttributeValue(splitting_criterion) == value) {
-                    partitions.get(value).add(mush);
-                }
-            }
-        }
+    // number of nodes each stopping rule cut off during training
+    public Map<StoppingRules.Rule, Integer> getStoppingCuts() {
+        return stoppingCuts;
+    }
 
-        // create children
-        for(Object value : partitions.keySet()) {
-            if(partitions.get(value).isEmpty()) {
-                // creating leaf node with empty att list, because it's not needed further
-                Node leaf = new Node(partitions.get(value), new ArrayList<>());
-                // setting class label of leaf to majority
-                leaf.setLabel(getMajorityClassLabel(data));
-                leaf.setValue(value);
-                leaf.setParent(node);
-                node.addChild(leaf);
-            } else {
-                // recursive magic... we hope!!
-                Node child = generateDecisionTree(partitions.get(value), global_attributes_list);
-                child.setValue(value);
-                child.setParent(node);
-                node.addChild(child);
-            }
-        }
-        return node;
+    // size and shape of the tree as it was built, before pruning
+    public TreeStats getUnprunedTreeStats() {
+        return unprunedStats;
     }
 
+    // size and shape of the final tree
+    public TreeStats getTreeStats() {
+        return stats;
+    }
 
     public Object getMajorityClassLabel(List<Mushroom> data) {
         int edible = 0;
         int poisonous = 0;
         for(Mushroom mush : data) {
-            if(mush.getAttributeValue(Class_Label.class).equals(Class_Label.edible)) edible++;
+            if(mush.m_Class == Class_Label.edible) edible++;
             else poisonous++;
         }
 
@@ -107,180 +122,103 @@ public class C45 {
 
 
     public Object attributeSelection(List<Mushroom> dataset, List<Object> attributes) {
+        // count the class labels for every value of every attribute in one pass over the data
+        long mask = Schema.attributeMask(attributes);
+        int attrId = attributeSelection(new ContingencyTable(dataset, mask), mask);
+        return attrId < 0 ? null : Schema.attribute(attrId);
+    }
 
-        // getting the information gain values for each attribute
-        HashMap<Object, Double> gainPerAttribute = informationGain(dataset, attributes);
-
-        // saving the split info calculation for each attribute.
-        HashMap<Object, Double> splitInfo = new HashMap<>();
-
-
-        for(Object att : attributes) {
-
-            // to calculate split Ratio, we need to know how many tuples there are in total for an attribute
-            double tupleTotal = 0.0;
-
-            // to keep track of how many tuples there are for each value of the attribute (ratio calculation)
-            HashMap<Object, Double> tuplesForEachValue = new HashMap<>();
-
-            // looking at one attribute
-            for(Object value : ((Class) att).getEnumConstants()) {
+    private int attributeSelection(ContingencyTable counts, long attributes) {
 
-                // looking at one attribute value and at their class label (how many are p and how many are e)
-                double poisonous = DataManager.CountClassInstancesBasedOnAttributeValue(dataset,
-                        att, value, Class_Label.poisonous);
-                double edible = DataManager.CountClassInstancesBasedOnAttributeValue(dataset,
-                        att, value, Class_Label.edible);
+        // getting the information gain values for each attribute, indexed by attribute id
+        double[] gainPerAttribute = informationGain(counts, attributes);
 
-                // how many mushrooms with this specific attribute value in total ( p. 338 Info-attribute(D) )
-                double totalAmountWithAttValue = poisonous + edible;
+        // saving the split info calculation for each attribute.
+        double[] splitInfo = new double[Schema.ATTRIBUTE_COUNT];
 
-                // store the total amount of tuples for 1 value in a map
-                tuplesForEachValue.put(value, totalAmountWithAttValue);
+        // to calculate split Ratio, we need to know how many tuples there are in total for an attribute
+        int tupleTotal = counts.size();
 
-                // increment for the sake of the GainRatio calculation, to get how many tuples there are for the attribute
-                tupleTotal =  tupleTotal +totalAmountWithAttValue;
-            }
+        for(long remaining = attributes; remaining != 0L; remaining &= remaining - 1) {
+            int attrId = Long.numberOfTrailingZeros(remaining);
 
             // if there are no tuples for that attribute left, then give it a bad score
             if(tupleTotal == 0) {
-                splitInfo.put(att, -1.0);
+                splitInfo[attrId] = -1.0;
             }
             else {
-                // lets do the split calculation p. 341 in the book
+                // lets do the split calculation p. 341 in the book, with the tuples for each value of the attribute
                 double totalSplitInfo = 1;
-                for (Object value : tuplesForEachValue.keySet()) {
-                    double split = splitRatio(tuplesForEachValue.get(value), tupleTotal);
+                for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+                    double split = splitRatio(counts.valueCount(attrId, ordinal), tupleTotal);
                     totalSplitInfo = totalSplitInfo * split;
                 }
-                splitInfo.put(att, totalSplitInfo);
+                splitInfo[attrId] = totalSplitInfo;
             }
         }
-        // return the attribute with the highest information gain
-        return gainRatioCalculation(gainPerAttribute, splitInfo);
+        // return the attribute with the highest gain ratio
+        return gainRatioCalculation(attributes, gainPerAttribute, splitInfo);
     }
 
-    // returns the attribute we need to split by
-    private Object gainRatioCalculation(HashMap<Object, Double> gainPerAttribute, HashMap<Object,Double> splitInfo){
+    // returns the id of the attribute we need to split by, or -1 if there is no gain
+    private int gainRatioCalculation(long attributes, double[] gainPerAttribute, double[] splitInfo){
 
         // keep track of max gain
         double maxGainRatio = 0.0;
+        int bestAttribute = -1;
         // get the average gain constraint
         double averageGain = gainRatioAverage ;
 
-        // gain ratio map
-        HashMap<Double, Object> gainRatio = new HashMap<>();
-
-        // calculate the gainRatio for the attributes with a score that is higher than or equal to the average information gain
-        for(Object att: gainPerAttribute.keySet()){
-            if(gainPerAttribute.get(att) >= averageGain){
-                double ratio = gainPerAttribute.get(att)/splitInfo.get(att);
-                gainRatio.put(ratio, att);
-                if(maxGainRatio < ratio) maxGainRatio = ratio;
+        // calculate the gainRatio for the attributes with a score that is higher than or equal to the average information gain,
+        // on ties the last attribute wins
+        for(long remaining = attributes; remaining != 0L; remaining &= remaining - 1) {
+            int attrId = Long.numberOfTrailingZeros(remaining);
+            if(gainPerAttribute[attrId] >= averageGain){
+                double ratio = gainPerAttribute[attrId]/splitInfo[attrId];
+                if(ratio >= maxGainRatio) {
+                    maxGainRatio = ratio;
+                    bestAttribute = attrId;
+                }
             }
         }
-        //if there is no gain, return null
-        if(maxGainRatio == 0.0) return null;
+        //if there is no gain, return -1
+        if(maxGainRatio == 0.0) return -1;
 
-        return gainRatio.get(maxGainRatio);
+        return bestAttribute;
     }
 
     // calculating the informationGain similar to the ID3 attributeSelection method, but
-    // returns a map instead of an attribute
-    private HashMap<Object, Double> informationGain(List<Mushroom> dataset, List<Object> attributes) {
-
-        double entropy = calculateEntropyForSet(dataset);
+    // returns the gain of every attribute (indexed by attribute id) instead of an attribute
+    private double[] informationGain(ContingencyTable counts, long attributes) {
 
         //calculating the information gain for each attribute
-        HashMap<Object, Double> gainPerAttribute = new HashMap<>();
-
-        for (Object att : attributes) {
-
-            // looking at one attribute
-            double infoGain;
-            double infoForAttribute = 0;
-            for (Object value : ((Class) att).getEnumConstants()) {
-
-                // looking at one attribute value and at their class label (how many are p and how many are e)
-                double poisonous = DataManager.CountClassInstancesBasedOnAttributeValue(dataset,
-                        att, value, Class_Label.poisonous);
-                double edible = DataManager.CountClassInstancesBasedOnAttributeValue(dataset,
-                        att, value, Class_Label.edible);
-
-                // how many mushrooms with this specific attribute value in total ( p. 338 Info-attribute(D) )
-                double totalAmountWithAttValue = poisonous + edible;
-
-                double infoForPoisonous = 0.0;
-                if (poisonous > 0) { // if the number is 0 then there's no information to be gained from this
-                    infoForPoisonous = (-(poisonous / totalAmountWithAttValue
-                            * logBase2(poisonous / totalAmountWithAttValue)));
-                }
-
-                double infoForEdible = 0.0;
-                if (edible > 0) { // if the number is 0 then there's no information to be gained from this
-                    infoForEdible = (-(edible / totalAmountWithAttValue
-                            * logBase2(edible / totalAmountWithAttValue)));
-                }
-
-                double infoPerValue = (totalAmountWithAttValue / dataset.size()) * (infoForPoisonous + infoForEdible);
-
-                infoForAttribute += infoPerValue;
-            }
+        double[] gainPerAttribute = new double[Schema.ATTRIBUTE_COUNT];
 
+        for(long remaining = attributes; remaining != 0L; remaining &= remaining - 1) {
+            int attrId = Long.numberOfTrailingZeros(remaining);
             // p. 339 Gain(attribute) - how much will splitting by this attribute lower the amount of entropy
-            infoGain = entropy - infoForAttribute;
-            gainPerAttribute.put(att, infoGain);
+            gainPerAttribute[attrId] = counts.informationGain(attrId);
         }
         return gainPerAttribute;
     }
 
 
     // split info calculation
-    private double splitRatio(double tupleAmount, double tupleTotal){
+    private double splitRatio(int tupleAmount, int tupleTotal){
         //to make sure we do not take the log of zero
-        if(tupleAmount == 0.0){
+        if(tupleAmount == 0){
             return 1;
         }
-        return (-(tupleAmount/tupleTotal)*logBase2(tupleAmount/tupleTotal));
-    }
-
-
-    // for use in calculating information gain we need the entropy for the entire set on that class label
-    // p. 338 Info(D)
-    private double calculateEntropyForSet(List<Mushroom> dataset) {
-        int size = dataset.size();
-        double poisonous = 0;
-        double edible = 0;
-
-        for(Mushroom tuple : dataset) {
-            if(tuple.getAttributeValue(Class_Label.class).equals(Class_Label.edible)) {
-                edible++;
-            }
-
-            if(tuple.getAttributeValue(Class_Label.class).equals(Class_Label.poisonous)) {
-                poisonous++;
-            }
-        }
-
-        // if one is 0, then don't do calculation
-        if(poisonous == 0.0 || edible == 0.0) return 0.0;
-
-        return (-(poisonous / size) * logBase2(poisonous / size)) +
-                (-(edible / size) * logBase2(edible / size));
-    }
-
-    // for use in entropy calculation
-    private double logBase2(double amount) {
-        return Math.log(amount) / Math.log(2);
+        return Entropy.splitTerm(tupleAmount, tupleTotal);
     }
 
     // average informationGain for all attributes
-    private double calculateInfoAverage(HashMap<Object, Double> gainPerAttribute){
+    private double calculateInfoAverage(long attributes, double[] gainPerAttribute){
         double totalgain = 0.0;
         int attributeNumber = 0;
 
-        for(Object att: gainPerAttribute.keySet()){
-            double n = gainPerAttribute.get(att);
+        for(long remaining = attributes; remaining != 0L; remaining &= remaining - 1) {
+            double n = gainPerAttribute[Long.numberOfTrailingZeros(remaining)];
             totalgain = totalgain + n;
             attributeNumber++;
         }
@@ -297,13 +235,35 @@ public class C45 {
     }
 
     private Class_Label findClass(Mushroom mushroom, Node node) {
-        Object splitAttribute = node.getSplitting_criterion();
-        if(splitAttribute != null) {
-            Object value = mushroom.getAttributeValue(splitAttribute);
-            for (Node child : node.getChildren()) {
-                if (value.equals(child.getValue()) && !node.isLeaf()) {
-                    return findClass(mushroom, child);
-                }
+        int attrId = node.getSplitAttributeId();
+        if(attrId >= 0) {
+            int value = mushroom.valueOrdinal(attrId);
+            Node child = node.getChild(value);
+            if (child != null && !node.isLeaf()) {
+                return findClass(mushroom, child);
+            }
+        }
+        return node.getM_Class();
+    }
+
+    /**
+     * Classifies a row of a column based table, without creating a mushroom object for it.
+     * @param node root node of decision tree
+     * @param table table holding the mushroom to classify
+     * @param row index of the row in the table
+     * @return the predicted class label of the mushroom (either edible or poisonous)
+     */
+    public Object classify(Node node, MushroomTable table, int row) {
+        return findClass(table, row, node);
+    }
+
+    private Class_Label findClass(MushroomTable table, int row, Node node) {
+        int attrId = node.getSplitAttributeId();
+        if(attrId >= 0) {
+            int value = table.valueOrdinal(row, attrId);
+            Node child = node.getChild(value);
+            if (child != null && !node.isLeaf()) {
+                return findClass(table, row, child);
             }
         }
         return node.getM_Class();
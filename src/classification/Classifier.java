@@ -0,0 +1,44 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import data.Schema;
+import enums.Class_Label;
+
+/**
+ * A trained model that predicts the class label of a mushroom.
+ */
+public interface Classifier {
+    /**
+     * @param mushroom mushroom to classify as either edible or poisonous
+     * @return the predicted class label of the mushroom
+     */
+    Class_Label classify(Mushroom mushroom);
+
+    /**
+     * Classifies a row of a column based table, without creating a mushroom object for it.
+     * @param table table holding the mushroom to classify
+     * @param row index of the row in the table
+     * @return the predicted class label of the mushroom
+     */
+    Class_Label classify(MushroomTable table, int row);
+
+    /**
+     * Classifies a row of a column based table.
+     * @param table table holding the mushroom to classify
+     * @param row index of the row in the table
+     * @return ordinal of the predicted class label, -1 if there is none
+     */
+    default int classifyOrdinal(MushroomTable table, int row) {
+        Class_Label label = classify(table, row);
+        return label == null ? -1 : label.ordinal();
+    }
+
+    /**
+     * The attributes a prediction can depend on, mushrooms that agree on all of them get the same label.
+     * @return the attributes as a mask (see Schema.attributeMask), all of them unless the model knows better
+     */
+    default long usedAttributes() {
+        return Schema.allAttributes();
+    }
+}
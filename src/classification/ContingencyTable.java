@@ -0,0 +1,215 @@
+package classification;
+
+import data.BitmapIndex;
+import data.Mushroom;
+import data.MushroomTable;
+import data.Schema;
+import enums.Class_Label;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts how many tuples there are of each class label for every value of every attribute,
+ * i.e. a table of counts[attribute][value][class], filled in a single pass over a partition.
+ * Entropy, information gain and the tuple counts for split info are all derived from the table,
+ * so selecting the attribute to split a node by only needs one scan of its data.
+ */
+public class ContingencyTable {
+    // start of the block of counts for each attribute id, -1 for attributes that aren't counted
+    private final int[] offsets = new int[Schema.ATTRIBUTE_COUNT];
+    private int[] counts;
+    // ids of the counted attributes
+    private int[] attrIds;
+    private final int[] classCounts = new int[Schema.CLASS_COUNT];
+    private int size;
+
+    /**
+     * Counts the data for the given attributes.
+     * @param data the partition to count
+     * @param attributes attributes to count values for as a mask (see Schema.attributeMask), other attributes can't be looked up
+     */
+    public ContingencyTable(List<Mushroom> data, long attributes) {
+        layout(attributes);
+
+        for(Mushroom mushroom : data) {
+            int label = mushroom.m_Class.ordinal();
+            classCounts[label]++;
+            for(int attrId : attrIds) {
+                counts[offsets[attrId] + mushroom.valueOrdinal(attrId) * Schema.CLASS_COUNT + label]++;
+            }
+        }
+        size = data.size();
+    }
+
+    /**
+     * Counts the rows table[rows[from]] to table[rows[to - 1]] for the given attributes, one column at a time.
+     * @param table the data
+     * @param rows indices of the rows in the table
+     * @param from start of the partition in rows
+     * @param to end of the partition in rows (exclusive)
+     * @param attributes attributes to count values for as a mask (see Schema.attributeMask), other attributes can't be looked up
+     */
+    public ContingencyTable(MushroomTable table, int[] rows, int from, int to, long attributes) {
+        layout(attributes);
+
+        for(int i = from; i < to; i++) {
+            classCounts[table.labelOrdinal(rows[i])]++;
+        }
+        for(int attrId : attrIds) {
+            byte[] column = table.column(attrId);
+            int base = offsets[attrId];
+            for(int i = from; i < to; i++) {
+                int row = rows[i];
+                counts[base + column[row] * Schema.CLASS_COUNT + table.labelOrdinal(row)]++;
+            }
+        }
+        size = to - from;
+    }
+
+    /**
+     * Counts a set of rows from a bitmap index, for every attribute value the counts are popcounts
+     * of (rows & value) and (rows & value & poisonous), without looking at any single row.
+     * @param index bitmap index of the data
+     * @param rows bit set of the rows to count
+     * @param attributes attributes to count values for as a mask (see Schema.attributeMask), other attributes can't be looked up
+     */
+    public ContingencyTable(BitmapIndex index, long[] rows, long attributes) {
+        layout(attributes);
+        long[] poisonousBits = index.poisonousBits();
+
+        // only the words between the first and the last row of the set can have bits set
+        int first = 0;
+        int last = rows.length;
+        while(first < last && rows[first] == 0L) first++;
+        while(last > first && rows[last - 1] == 0L) last--;
+
+        size = BitmapIndex.cardinality(rows);
+        classCounts[Class_Label.poisonous.ordinal()] = index.countPoisonous(rows);
+        classCounts[Class_Label.edible.ordinal()] = size - classCounts[Class_Label.poisonous.ordinal()];
+
+        for(int attrId : attrIds) {
+            for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+                long[] valueBits = index.valueBits(attrId, ordinal);
+                int withValue = 0;
+                int poisonous = 0;
+                for(int i = first; i < last; i++) {
+                    long bits = rows[i] & valueBits[i];
+                    withValue += Long.bitCount(bits);
+                    poisonous += Long.bitCount(bits & poisonousBits[i]);
+                }
+                int offset = offsets[attrId] + ordinal * Schema.CLASS_COUNT;
+                counts[offset + Class_Label.edible.ordinal()] = withValue - poisonous;
+                counts[offset + Class_Label.poisonous.ordinal()] = poisonous;
+            }
+        }
+    }
+
+    /**
+     * The counts of the part of a partition that isn't in any of the siblings, i.e. the parent's counts minus
+     * the counts of the siblings. Used to get the table of a node's largest child without counting it.
+     * @param parent counts of the partition, must include the attributes
+     * @param siblings counts of the other parts, counted for exactly the given attributes
+     * @param attributes attributes to keep the counts of as a mask (see Schema.attributeMask)
+     */
+    public ContingencyTable(ContingencyTable parent, List<ContingencyTable> siblings, long attributes) {
+        layout(attributes);
+        for(int attrId : attrIds) {
+            System.arraycopy(parent.counts, parent.offsets[attrId], counts, offsets[attrId],
+                    Schema.valueCount(attrId) * Schema.CLASS_COUNT);
+        }
+        System.arraycopy(parent.classCounts, 0, classCounts, 0, Schema.CLASS_COUNT);
+        size = parent.size;
+
+        // the siblings have the same layout as this table, so their counts can be subtracted element by element
+        for(ContingencyTable sibling : siblings) {
+            for(int i = 0; i < counts.length; i++) {
+                counts[i] -= sibling.counts[i];
+            }
+            for(int label = 0; label < Schema.CLASS_COUNT; label++) {
+                classCounts[label] -= sibling.classCounts[label];
+            }
+            size -= sibling.size;
+        }
+    }
+
+    /**
+     * An empty table, rows are counted one at a time with add.
+     * @param attributes attributes to count values for as a mask (see Schema.attributeMask), other attributes can't be looked up
+     */
+    ContingencyTable(long attributes) {
+        layout(attributes);
+    }
+
+    // counts one row of the table
+    void add(MushroomTable table, int row) {
+        int label = table.labelOrdinal(row);
+        classCounts[label]++;
+        for(int attrId : attrIds) {
+            counts[offsets[attrId] + table.valueOrdinal(row, attrId) * Schema.CLASS_COUNT + label]++;
+        }
+        size++;
+    }
+
+    // gives every counted attribute its block in counts and allocates them
+    private void layout(long attributes) {
+        attrIds = new int[Long.bitCount(attributes)];
+        int length = 0;
+        Arrays.fill(offsets, -1);
+        for(int i = 0; i < attrIds.length; i++) {
+            attrIds[i] = Long.numberOfTrailingZeros(attributes);
+            attributes &= attributes - 1;
+            offsets[attrIds[i]] = length;
+            length += Schema.valueCount(attrIds[i]) * Schema.CLASS_COUNT;
+        }
+        counts = new int[length];
+    }
+
+    // number of tuples in the partition
+    public int size() {
+        return size;
+    }
+
+    // number of tuples with the given class label
+    public int classCount(int classOrdinal) {
+        return classCounts[classOrdinal];
+    }
+
+    // number of tuples with the given attribute value and class label
+    public int count(int attrId, int valueOrdinal, int classOrdinal) {
+        return counts[offsets[attrId] + valueOrdinal * Schema.CLASS_COUNT + classOrdinal];
+    }
+
+    // number of tuples with the given attribute value
+    public int valueCount(int attrId, int valueOrdinal) {
+        int total = 0;
+        for(int label = 0; label < Schema.CLASS_COUNT; label++) {
+            total += count(attrId, valueOrdinal, label);
+        }
+        return total;
+    }
+
+    // p. 338 Info(D), the entropy of the partition on the class label
+    public double entropy() {
+        return Entropy.info(classCounts, 0, Schema.CLASS_COUNT, size);
+    }
+
+    /**
+     * p. 339 Gain(attribute) - how much will splitting by this attribute lower the amount of entropy.
+     * With n_v tuples for value v, of which c_vc have class label c, Info-attribute(D) is
+     * sum over v of (n_v log2 n_v - sum over c of c_vc log2 c_vc) / n, which is all table lookups.
+     */
+    public double informationGain(int attrId) {
+        double infoForAttribute = 0.0;
+        int base = offsets[attrId];
+        for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+            int offset = base + ordinal * Schema.CLASS_COUNT;
+            int totalAmountWithAttValue = 0;
+            for(int label = 0; label < Schema.CLASS_COUNT; label++) {
+                totalAmountWithAttValue += counts[offset + label];
+            }
+            infoForAttribute += Entropy.nLog2n(totalAmountWithAttValue)
+                    - Entropy.sumNLog2n(counts, offset, Schema.CLASS_COUNT);
+        }
+        return entropy() - infoForAttribute / size;
+    }
+}
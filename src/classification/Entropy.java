@@ -0,0 +1,68 @@
+package classification;
+
+/**
+ * Entropy math on integer counts, driven by a precomputed table of n * log2(n).
+ * Every count in tree induction is a whole number no larger than the data set, so with
+ * Info(D) = (n log2 n - sum of c log2 c) / n for class counts c adding up to n, entropy, information
+ * gain and split info only need table lookups. Counts past the end of the table are computed directly.
+ */
+public class Entropy {
+    // counts below this are looked up in the table
+    public static final int TABLE_SIZE = 1 << 16;
+
+    private static final double LN_2 = Math.log(2);
+    private static final double[] N_LOG2_N = new double[TABLE_SIZE];
+
+    static {
+        // 0 * log2(0) is taken to be 0, a count of 0 adds no information
+        for(int n = 1; n < TABLE_SIZE; n++) {
+            N_LOG2_N[n] = n * (Math.log(n) / LN_2);
+        }
+    }
+
+    // n * log2(n), with 0 for n = 0
+    public static double nLog2n(int n) {
+        if(n < TABLE_SIZE) {
+            return N_LOG2_N[n];
+        }
+        return n * (Math.log(n) / LN_2);
+    }
+
+    /**
+     * Entropy of a set of counts, p. 338 Info(D).
+     * @param counts array holding the counts
+     * @param offset position of the first count
+     * @param length number of counts
+     * @param total sum of the counts
+     * @return the entropy in bits, 0 if total is 0
+     */
+    public static double info(int[] counts, int offset, int length, int total) {
+        if(total == 0) {
+            return 0.0;
+        }
+        return (nLog2n(total) - sumNLog2n(counts, offset, length)) / total;
+    }
+
+    // sum of c * log2(c) over the counts
+    public static double sumNLog2n(int[] counts, int offset, int length) {
+        double sum = 0.0;
+        for(int i = offset; i < offset + length; i++) {
+            sum += nLog2n(counts[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * One term of split info, p. 341: -(count / total) * log2(count / total).
+     * @param count number of tuples with one value of the attribute
+     * @param total number of tuples
+     * @return the term, 0 if count is 0
+     */
+    public static double splitTerm(int count, int total) {
+        if(count == 0) {
+            return 0.0;
+        }
+        // count * log2(total) - count * log2(count), with log2(total) taken from the table as well
+        return (count * (nLog2n(total) / total) - nLog2n(count)) / total;
+    }
+}
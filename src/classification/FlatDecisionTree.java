@@ -0,0 +1,135 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A trained decision tree compiled into flat arrays, one entry per node in breadth first order.
+ * The children of a node are stored next to each other in the order of the value ordinals of its split
+ * attribute, so the child for a value is found at childBase + ordinal. Classifying is a loop of array
+ * loads, one step per level of the tree, and allocates nothing.
+ */
+public final class FlatDecisionTree implements Classifier {
+    private static final Class_Label[] LABELS = Class_Label.values();
+
+    // id of the attribute a node splits on, -1 for a leaf
+    private final int[] splitAttr;
+    // position of a node's child for value ordinal 0
+    private final int[] childBase;
+    // ordinal of the class label of a node, -1 when it has none
+    private final byte[] leafLabel;
+
+    private FlatDecisionTree(int[] splitAttr, int[] childBase, byte[] leafLabel) {
+        this.splitAttr = splitAttr;
+        this.childBase = childBase;
+        this.leafLabel = leafLabel;
+    }
+
+    /**
+     * Compiles a trained tree.
+     * @param root root node of the decision tree
+     * @return the flat tree
+     */
+    public static FlatDecisionTree of(Node root) {
+        // nodes in breadth first order, a value an internal node has no child for gets a leaf with the node's label
+        List<Node> nodes = new ArrayList<>();
+        List<Class_Label> labels = new ArrayList<>();
+        nodes.add(root);
+        labels.add(root.getM_Class());
+
+        int[] splitAttr = new int[16];
+        int[] childBase = new int[16];
+        for(int i = 0; i < nodes.size(); i++) {
+            if(i == splitAttr.length) {
+                splitAttr = Arrays.copyOf(splitAttr, i * 2);
+                childBase = Arrays.copyOf(childBase, i * 2);
+            }
+            Node node = nodes.get(i);
+            int attrId = node == null || node.isLeaf() ? -1 : node.getSplitAttributeId();
+            splitAttr[i] = attrId;
+            if(attrId < 0) continue;
+
+            childBase[i] = nodes.size();
+            for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+                Node child = node.getChild(ordinal);
+                nodes.add(child);
+                labels.add(child != null ? child.getM_Class() : node.getM_Class());
+            }
+        }
+
+        byte[] leafLabel = new byte[nodes.size()];
+        for(int i = 0; i < leafLabel.length; i++) {
+            leafLabel[i] = (byte) (labels.get(i) == null ? -1 : labels.get(i).ordinal());
+        }
+        return new FlatDecisionTree(Arrays.copyOf(splitAttr, nodes.size()),
+                Arrays.copyOf(childBase, nodes.size()), leafLabel);
+    }
+
+    @Override
+    public Class_Label classify(Mushroom mushroom) {
+        int node = 0;
+        int attrId;
+        while((attrId = splitAttr[node]) >= 0) {
+            node = childBase[node] + mushroom.valueOrdinal(attrId);
+        }
+        return label(node);
+    }
+
+    @Override
+    public Class_Label classify(MushroomTable table, int row) {
+        return label(leafOf(table, row));
+    }
+
+    @Override
+    public int classifyOrdinal(MushroomTable table, int row) {
+        return leafLabel[leafOf(table, row)];
+    }
+
+    // position of the leaf the row ends up in
+    private int leafOf(MushroomTable table, int row) {
+        int node = 0;
+        int attrId;
+        while((attrId = splitAttr[node]) >= 0) {
+            node = childBase[node] + table.column(attrId)[row];
+        }
+        return node;
+    }
+
+    private Class_Label label(int node) {
+        int ordinal = leafLabel[node];
+        return ordinal < 0 ? null : LABELS[ordinal];
+    }
+
+    @Override
+    public long usedAttributes() {
+        long used = 0L;
+        for(int attrId : splitAttr) {
+            if(attrId >= 0) used |= 1L << attrId;
+        }
+        return used;
+    }
+
+    // number of entries, the nodes of the tree plus a leaf for every value an internal node had no child for
+    public int size() {
+        return splitAttr.length;
+    }
+
+    // the entries one by one, for writing the tree to a file (see ModelFile)
+    int splitAttr(int node) {
+        return splitAttr[node];
+    }
+
+    int childBase(int node) {
+        return childBase[node];
+    }
+
+    byte leafLabel(int node) {
+        return leafLabel[node];
+    }
+}
@@ -1,89 +1,82 @@
 package classification;
 
-import data.DataManager;
 import data.Mushroom;
+import data.MushroomTable;
 import data.Node;
+import data.Schema;
 import enums.*;
 import java.util.*;
 
 @SuppressWarnings("Duplicates")
 public class ID3 {
-    private List<Object> global_attributes_list;
     private Node root;
+    private Map<StoppingRules.Rule, Integer> stoppingCuts;
 
 
     public ID3(List<Mushroom> dataset, List<Object> attributes_list) {
-        this.global_attributes_list = attributes_list;
-        root = generateDecisionTree(dataset, global_attributes_list);
-        root.setParent(root);
+        this(MushroomTable.of(dataset), attributes_list);
     }
 
-    public Node getDecisionTree() {
-        return root;
+    /**
+     * Builds the decision tree from data in a column based table.
+     * All nodes share one array of row indices, which is partitioned in place as the tree grows.
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     */
+    public ID3(MushroomTable dataset, List<Object> attributes_list) {
+        this(dataset, attributes_list, false);
     }
 
-    // return root node
-    private Node generateDecisionTree(List<Mushroom> data, List<Object> attributes_list) {
-        Node node = new Node(data, attributes_list);
+    /**
+     * Builds the decision tree, optionally building subtrees in parallel on the common fork/join pool.
+     * Both ways give the same tree.
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     * @param parallel whether to build subtrees in parallel
+     */
+    public ID3(MushroomTable dataset, List<Object> attributes_list, boolean parallel) {
+        this(dataset, attributes_list, parallel ? InductionEngine.Strategy.PARALLEL : InductionEngine.Strategy.DEPTH_FIRST);
+    }
 
-        // if all tuples have same class label, return node with that class label
-        if(calculateEntropyForSet(data) == 0.0) {
-            node.setLabel(data.get(0).getAttributeValue(Class_Label.class));
-            node.setLeaf();
-            return node;
-        }
+    /**
+     * Builds the decision tree in the given order, see InductionEngine.Strategy. All of them give the same tree.
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     * @param strategy the order to grow the tree in
+     */
+    public ID3(MushroomTable dataset, List<Object> attributes_list, InductionEngine.Strategy strategy) {
+        this(dataset, attributes_list, strategy, StoppingRules.NONE);
+    }
 
-        // if there's no attributes, return node with majority class label
-        if(global_attributes_list.isEmpty()) {
-            node.setLabel(getMajorityClassLabel(data));
-            node.setLeaf();
-            return node;
-        }
+    /**
+     * Builds the decision tree in the given order, stopping early where the rules say so. With a max number of
+     * nodes PARALLEL builds the tree sequentially and LEVEL_WISE may give another tree (see InductionEngine.Strategy).
+     * @param dataset training data
+     * @param attributes_list attributes the tree may split on
+     * @param strategy the order to grow the tree in
+     * @param rules limits on how far the tree is grown
+     */
+    public ID3(MushroomTable dataset, List<Object> attributes_list, InductionEngine.Strategy strategy, StoppingRules rules) {
+        TrainingData training = new TrainingData(dataset);
+        InductionEngine engine = new InductionEngine(training, ID3::attributeSelection, rules);
+        root = engine.generateDecisionTree(attributes_list, strategy);
+        stoppingCuts = engine.getCuts();
+    }
 
-        // get best attribute to split by
-        Object splitting_criterion = attributeSelection(data, attributes_list);
-        node.setSplittingCriterion(splitting_criterion);
-        global_attributes_list.remove(splitting_criterion);
-
-        // partition data into sets per value and add mushrooms with that value...
-        Map<Object, List<Mushroom>> partitions = new HashMap<>();
-        for(Object value : ((Class) splitting_criterion).getEnumConstants()) {
-            // looking at one value for the attribute selected as splitting criterion
-            partitions.put(value, new ArrayList<>());
-            for(Mushroom mush : data) {
-                if(mush.getAttributeValue(splitting_criterion) == value) {
-                    partitions.get(value).add(mush);
-                }
-            }
-        }
+    public Node getDecisionTree() {
+        return root;
+    }
 
-        // create children
-        for(Object value : partitions.keySet()) {
-            if(partitions.get(value).isEmpty()) {
-                // creating leaf node with empty att list, because it's not needed further
-                Node leaf = new Node(partitions.get(value), new ArrayList<>());
-                // setting class label of leaf to majority
-                leaf.setLabel(getMajorityClassLabel(data));
-                leaf.setLeaf();
-                leaf.setValue(value);
-                leaf.setParent(node);
-                node.addChild(leaf);
-            } else {
-                // recursive magic... we hope!!
-                Node child = generateDecisionTree(partitions.get(value), global_attributes_list);
-                child.setValue(value);
-                child.setParent(node);
-                node.addChild(child);
-            }
-        }
-        return node;
+    // number of nodes each stopping rule cut off during training
+    public Map<StoppingRules.Rule, Integer> getStoppingCuts() {
+        return stoppingCuts;
     }
 
     public Object getMajorityClassLabel(List<Mushroom> data) {
         int edible = 0;
         int poisonous = 0;
         for(Mushroom mush : data) {
-            if(mush.getAttributeValue(Class_Label.class).equals(Class_Label.edible)) edible++;
+            if(mush.m_Class == Class_Label.edible) edible++;
             else poisonous++;
         }
 
@@ -93,82 +86,28 @@ public class ID3 {
 
 
     public static Object attributeSelection(List<Mushroom> dataset, List<Object> attributes) {
-        double entropy = calculateEntropyForSet(dataset);
+        // count the class labels for every value of every attribute in one pass over the data
+        long mask = Schema.attributeMask(attributes);
+        int attrId = attributeSelection(new ContingencyTable(dataset, mask), mask);
+        return attrId < 0 ? null : Schema.attribute(attrId);
+    }
 
-        HashMap<Double, Object> gainPerAttribute = new HashMap<>();
+    // returns the id of the attribute with the highest information gain, on ties the last one
+    private static int attributeSelection(ContingencyTable counts, long attributes) {
+        int bestAttribute = -1;
         double maxGain = 0.0;
 
-        for(Object att : attributes) {
-            // looking at one attribute
-            double infoGain;
-            double infoForAttribute = 0;
-            for(Object value : ((Class) att).getEnumConstants()) {
-
-                // looking at one attribute value and at their class label (how many are p and how many are e)
-                double poisonous = DataManager.CountClassInstancesBasedOnAttributeValue(dataset,
-                        att, value, Class_Label.poisonous);
-                double edible = DataManager.CountClassInstancesBasedOnAttributeValue(dataset,
-                        att, value, Class_Label.edible);
-
-                // how many mushrooms with this specific attribute value in total ( p. 338 Info-attribute(D) )
-                double totalAmountWithAttValue = poisonous + edible;
-
-                double infoForPoisonous = 0.0;
-                if(poisonous > 0) { // if the number is 0 then there's no information to be gained from this
-                    infoForPoisonous = (-(poisonous/totalAmountWithAttValue
-                            * logBase2(poisonous/totalAmountWithAttValue)));
-                }
-
-                double infoForEdible = 0.0;
-                if(edible > 0) { // if the number is 0 then there's no information to be gained from this
-                    infoForEdible = (-(edible/totalAmountWithAttValue
-                            * logBase2(edible/totalAmountWithAttValue)));
-                }
-
-                double infoPerValue = (totalAmountWithAttValue / dataset.size()) * (infoForPoisonous + infoForEdible);
-
-                infoForAttribute += infoPerValue;
-            }
+        for(long remaining = attributes; remaining != 0L; remaining &= remaining - 1) {
+            int attrId = Long.numberOfTrailingZeros(remaining);
 
             // p. 339 Gain(attribute) - how much will splitting by this attribute lower the amount of entropy
-            infoGain = entropy - infoForAttribute;
-            gainPerAttribute.put(infoGain, att);
-
-            // set the max gain for easy retrieval in the map
-            if(infoGain > maxGain) maxGain = infoGain;
-        }
-
-        // return the attribute with the highest information gain
-        return gainPerAttribute.get(maxGain);
-    }
-
-    // for use in calculating information gain we need the entropy for the entire set on that class label
-    // p. 338 Info(D)
-    private static double calculateEntropyForSet(List<Mushroom> dataset) {
-        int size = dataset.size();
-        double poisonous = 0;
-        double edible = 0;
-
-        for(Mushroom tuple : dataset) {
-            if(tuple.getAttributeValue(Class_Label.class).equals(Class_Label.edible)) {
-                edible++;
-            }
-
-            if(tuple.getAttributeValue(Class_Label.class).equals(Class_Label.poisonous)) {
-                poisonous++;
+            double infoGain = counts.informationGain(attrId);
+            if(infoGain >= maxGain) {
+                maxGain = infoGain;
+                bestAttribute = attrId;
             }
         }
-
-        // if one is 0, then don't do calculation
-        if(poisonous == 0.0 || edible == 0.0) return 0.0;
-
-        return (-(poisonous / size) * logBase2(poisonous / size)) +
-                (-(edible / size) * logBase2(edible / size));
-    }
-
-    // for use in entropy calculation
-    private static double logBase2(double amount) {
-        return Math.log(amount) / Math.log(2);
+        return bestAttribute;
     }
 
     /**
@@ -183,15 +122,37 @@ public class ID3 {
         }
 
     private static Class_Label findClass(Mushroom mushroom, Node node) {
-        Object splitAttribute = node.getSplitting_criterion();
-        if(splitAttribute != null) {
-            Object value = mushroom.getAttributeValue(splitAttribute);
-            for (Node child : node.getChildren()) {
-                if (value.equals(child.getValue()) && !node.isLeaf()) {
-                    return findClass(mushroom, child);
-                }
+        int attrId = node.getSplitAttributeId();
+        if(attrId >= 0) {
+            int value = mushroom.valueOrdinal(attrId);
+            Node child = node.getChild(value);
+            if (child != null && !node.isLeaf()) {
+                return findClass(mushroom, child);
+            }
+        }
+        return node.getM_Class();
+    }
+
+    /**
+     * Classifies a row of a column based table, without creating a mushroom object for it.
+     * @param node root node of decision tree
+     * @param table table holding the mushroom to classify
+     * @param row index of the row in the table
+     * @return the predicted class label of the mushroom (either edible or poisonous)
+     */
+    public static Object classify(Node node, MushroomTable table, int row) {
+        return findClass(table, row, node);
+    }
+
+    private static Class_Label findClass(MushroomTable table, int row, Node node) {
+        int attrId = node.getSplitAttributeId();
+        if(attrId >= 0) {
+            int value = table.valueOrdinal(row, attrId);
+            Node child = node.getChild(value);
+            if (child != null && !node.isLeaf()) {
+                return findClass(table, row, child);
             }
         }
         return node.getM_Class();
     }
-}
\ No newline at end of file
+}
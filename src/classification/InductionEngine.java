@@ -0,0 +1,283 @@
+package classification;
+
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Grows a decision tree top-down from training data. This is the part ID3 and C45 have in common,
+ * they only differ in how the attribute to split a node by is selected.
+ * Every branch keeps its own set of the attributes it may still split on, as an immutable bit mask
+ * (see Schema.attributeMask), so sibling subtrees don't depend on each other and can be built in parallel.
+ * A tree built in parallel is identical to one built sequentially, with a max number of nodes it is built
+ * sequentially, as the nodes that get the budget depend on the order they're reached in.
+ */
+public class InductionEngine {
+    // in parallel mode, subtrees with fewer tuples than this are built sequentially
+    public static final int PARALLEL_CUTOFF = 1024;
+
+    /**
+     * Selects the attribute to split a node by.
+     */
+    public interface AttributeSelection {
+        /**
+         * @param counts counts of the node's tuples
+         * @param attributes mask of the attributes the node may split on
+         * @return id of the attribute to split by, or -1 to make the node a leaf with the majority class label
+         */
+        int select(ContingencyTable counts, long attributes);
+    }
+
+    /**
+     * The order the tree is grown in, all of them give the same tree. With a max number of nodes the nodes
+     * reached first get the budget: DEPTH_FIRST and BITMAP still give the same tree, PARALLEL builds it like
+     * DEPTH_FIRST then, and LEVEL_WISE, which grows the tree level by level, cuts off different nodes.
+     */
+    public enum Strategy {
+        // recursive, one subtree after the other
+        DEPTH_FIRST,
+        // recursive, large subtrees are built as fork/join tasks on the common pool, one after the other with max nodes
+        PARALLEL,
+        // breadth first, with one sequential pass over the rows for every level of the tree (see LevelWiseInduction)
+        LEVEL_WISE,
+        // recursive, with the rows of a node as a bit set and the counts as popcounts over a bitmap index (see BitmapInduction)
+        BITMAP
+    }
+
+    private final TrainingData data;
+    private final AttributeSelection selection;
+    private final StoppingRules rules;
+    // stopping rules of the last tree built, with the cuts they made
+    private StoppingCheck stopping;
+
+    public InductionEngine(TrainingData data, AttributeSelection selection) {
+        this(data, selection, StoppingRules.NONE);
+    }
+
+    /**
+     * @param data training data
+     * @param selection selects the attribute to split a node by
+     * @param rules limits on how far the tree is grown
+     */
+    public InductionEngine(TrainingData data, AttributeSelection selection, StoppingRules rules) {
+        this.data = data;
+        this.selection = selection;
+        this.rules = rules;
+    }
+
+    /**
+     * Builds the tree for all the training data.
+     * @param attributes attributes the tree may split on, the list is not modified
+     * @param parallel build subtrees as fork/join tasks on the common pool
+     * @return root node of the decision tree
+     */
+    public Node generateDecisionTree(List<Object> attributes, boolean parallel) {
+        return generateDecisionTree(attributes, parallel ? Strategy.PARALLEL : Strategy.DEPTH_FIRST);
+    }
+
+    /**
+     * Builds the tree for all the training data.
+     * @param attributes attributes the tree may split on, the list is not modified
+     * @param strategy the order to grow the tree in, when max nodes is reached the cut nodes depend on the order
+     * @return root node of the decision tree
+     */
+    public Node generateDecisionTree(List<Object> attributes, Strategy strategy) {
+        long mask = Schema.attributeMask(attributes);
+        stopping = new StoppingCheck(rules);
+        Node root;
+        // forked subtrees would take the node budget in whatever order they run
+        if(strategy == Strategy.PARALLEL && stopping.limitsNodes()) {
+            strategy = Strategy.DEPTH_FIRST;
+        }
+        switch(strategy) {
+            case PARALLEL:
+                root = ForkJoinPool.commonPool().invoke(new SubtreeTask(0, data.size(), mask, 0, null));
+                break;
+            case LEVEL_WISE:
+                return new LevelWiseInduction(data, selection, stopping).generateDecisionTree(mask);
+            case BITMAP:
+                return new BitmapInduction(data, selection, stopping).generateDecisionTree(mask);
+            default:
+                root = generateDecisionTree(0, data.size(), mask, 0, null, false);
+        }
+        root.setParent(root);
+        return root;
+    }
+
+    /**
+     * Number of nodes each stopping rule cut off while building the last tree.
+     * @return cuts of every rule, all 0 before a tree is built
+     */
+    public Map<StoppingRules.Rule, Integer> getCuts() {
+        return (stopping != null ? stopping : new StoppingCheck(rules)).getCuts();
+    }
+
+    /**
+     * Return root node of the subtree, the node's data is the range [from, to) of the training rows.
+     * The counts of the range are passed in when the parent already has them, else they are counted here.
+     */
+    private Node generateDecisionTree(int from, int to, long attributes, int depth, ContingencyTable counts, boolean parallel) {
+        Node node = new Node(from, to - from, attributes);
+
+        // if all tuples have same class label, return node with that class label
+        int poisonous = data.countPoisonous(from, to);
+        if(poisonous == 0 || poisonous == to - from) {
+            node.setLabel(data.getTable().getLabel(data.row(from)));
+            node.setLeaf();
+            return node;
+        }
+
+        // if there's no attributes, return node with majority class label
+        if(attributes == 0L) {
+            node.setLabel(data.getMajorityClassLabel(from, to));
+            node.setLeaf();
+            return node;
+        }
+
+        // if a stopping rule cuts the node off, return node with majority class label
+        if(stopping.stopBeforeCounting(depth, to - from)) {
+            node.setLabel(data.getMajorityClassLabel(from, to));
+            node.setLeaf();
+            return node;
+        }
+
+        // count the class labels for every value of every attribute in one pass over the node's rows
+        if(counts == null) {
+            counts = data.count(from, to, attributes);
+        }
+
+        // get best attribute to split by, if none is good enough return node with majority class label
+        int attrId = selection.select(counts, attributes);
+        if(attrId < 0 || stopping.stopAfterSelection(counts, attrId)) {
+            node.setLabel(data.getMajorityClassLabel(from, to));
+            node.setLeaf();
+            return node;
+        }
+        node.setSplittingCriterion(Schema.attribute(attrId));
+
+        // the children may split on every attribute of this node except the splitting criterion
+        long childAttributes = attributes & ~(1L << attrId);
+
+        // partition the node's rows in place, grouped by their value of the splitting criterion
+        int[] starts = data.partition(from, to, attrId, counts);
+        Class_Label majority = data.getMajorityClassLabel(from, to);
+        ContingencyTable[] childCounts = countChildren(counts, attrId, childAttributes, depth + 1, starts);
+
+        // create children, large subtrees are forked when building in parallel
+        Node[] children = new Node[Schema.valueCount(attrId)];
+        SubtreeTask[] tasks = new SubtreeTask[children.length];
+        for(int ordinal = 0; ordinal < children.length; ordinal++) {
+            int childFrom = starts[ordinal];
+            int childTo = starts[ordinal + 1];
+            if(childFrom == childTo) {
+                // creating leaf node with empty att list, because it's not needed further
+                children[ordinal] = new Node(childFrom, 0, 0L);
+                // setting class label of leaf to majority
+                children[ordinal].setLabel(majority);
+                children[ordinal].setLeaf();
+            } else if(parallel && childTo - childFrom >= PARALLEL_CUTOFF) {
+                tasks[ordinal] = new SubtreeTask(childFrom, childTo, childAttributes, depth + 1, childCounts[ordinal]);
+                tasks[ordinal].fork();
+            } else {
+                children[ordinal] = generateDecisionTree(childFrom, childTo, childAttributes, depth + 1, childCounts[ordinal], parallel);
+            }
+        }
+
+        for(int ordinal = 0; ordinal < children.length; ordinal++) {
+            if(tasks[ordinal] != null) {
+                children[ordinal] = tasks[ordinal].join();
+            }
+            children[ordinal].setValue(Schema.value(attrId, ordinal));
+            children[ordinal].setParent(node);
+            node.addChild(children[ordinal]);
+        }
+        return node;
+    }
+
+    /**
+     * Counts the children of a node that will be split themselves. The children's tables add up to the node's,
+     * so when it is less work the largest child isn't counted but gets the node's table minus its siblings'.
+     * @param counts counts of the node
+     * @param attrId attribute the node is split by
+     * @param childAttributes attributes the children may split on
+     * @param childDepth depth of the children
+     * @param starts start of every child's range, followed by the end of the node's range
+     * @return counts of every child, null for the children that don't need them
+     */
+    private ContingencyTable[] countChildren(ContingencyTable counts, int attrId, long childAttributes, int childDepth, int[] starts) {
+        int values = Schema.valueCount(attrId);
+        ContingencyTable[] childCounts = new ContingencyTable[values];
+        if(childAttributes == 0L) {
+            return childCounts;
+        }
+
+        // rows that have to be counted when every child that needs a table is counted directly
+        int largest = 0;
+        int direct = 0;
+        for(int ordinal = 0; ordinal < values; ordinal++) {
+            if(needsCounts(counts, attrId, ordinal, childDepth)) {
+                direct += counts.valueCount(attrId, ordinal);
+            }
+            if(counts.valueCount(attrId, ordinal) > counts.valueCount(attrId, largest)) {
+                largest = ordinal;
+            }
+        }
+        // by subtraction every other non empty child is counted, pure ones included
+        boolean subtract = needsCounts(counts, attrId, largest, childDepth)
+                && counts.size() - counts.valueCount(attrId, largest) < direct;
+
+        List<ContingencyTable> siblings = new ArrayList<>();
+        for(int ordinal = 0; ordinal < values; ordinal++) {
+            boolean count = subtract ? ordinal != largest && counts.valueCount(attrId, ordinal) > 0
+                    : needsCounts(counts, attrId, ordinal, childDepth);
+            if(count) {
+                childCounts[ordinal] = data.count(starts[ordinal], starts[ordinal + 1], childAttributes);
+                siblings.add(childCounts[ordinal]);
+            }
+        }
+        if(subtract) {
+            childCounts[largest] = new ContingencyTable(counts, siblings, childAttributes);
+        }
+        return childCounts;
+    }
+
+    // whether the child for a value holds both class labels and isn't stopped, i.e. it will look for an attribute to split by;
+    // a child the node budget has no room for isn't counted
+    private boolean needsCounts(ContingencyTable counts, int attrId, int ordinal, int childDepth) {
+        int poisonous = counts.count(attrId, ordinal, Class_Label.poisonous.ordinal());
+        int rows = counts.valueCount(attrId, ordinal);
+        return poisonous > 0 && poisonous < rows && stopping.allowsSplit(childDepth, rows);
+    }
+
+    /**
+     * Builds the subtree of a range of the training rows. Siblings own disjoint ranges,
+     * so their tasks can partition the shared row index array at the same time.
+     */
+    private class SubtreeTask extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final long attributes;
+        private final int depth;
+        private final ContingencyTable counts;
+
+        SubtreeTask(int from, int to, long attributes, int depth, ContingencyTable counts) {
+            this.from = from;
+            this.to = to;
+            this.attributes = attributes;
+            this.depth = depth;
+            this.counts = counts;
+        }
+
+        @Override
+        protected Node compute() {
+            return generateDecisionTree(from, to, attributes, depth, counts, true);
+        }
+    }
+}
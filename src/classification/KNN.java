@@ -1,19 +1,48 @@
 package classification;
 
 import data.Mushroom;
+import data.MushroomTable;
+import data.Schema;
 import enums.Class_Label;
 
 import java.util.*;
 
 public class KNN {
+    // mushrooms at most this far apart are neighbours when predicting
+    static final double MAX_DISTANCE = 2;
+
+    // the training set, the distances are computed on its columns by row index
+    private MushroomTable table;
+    // the mushrooms the table was built from, null if it was given as a table
     private List<Mushroom> mushrooms;
     private List<Object> listOfAttributes;
+    // ids of the attributes in data.Schema, used when comparing mushrooms
+    private int[] attributeIds;
     private int k;
 
     public KNN(List<Mushroom> mushrooms, List<Object> listOfAttributes, int k) {
+        this(MushroomTable.of(mushrooms), listOfAttributes, k);
         this.mushrooms = mushrooms;
+    }
+
+    /**
+     * Uses the rows of a column based table as the training set, no data.Mushroom objects are created for them
+     * except as keys of the maps classify returns.
+     */
+    public KNN(MushroomTable mushrooms, List<Object> listOfAttributes, int k) {
+        this.table = mushrooms;
         this.listOfAttributes = listOfAttributes;
         this.k = k;
+
+        attributeIds = new int[listOfAttributes.size()];
+        for(int i = 0; i < attributeIds.length; i++) {
+            attributeIds[i] = Schema.attributeId(listOfAttributes.get(i));
+        }
+    }
+
+    // ids of the attributes the distance is measured on
+    int[] getAttributeIds() {
+        return attributeIds;
     }
 
     /**
@@ -22,24 +51,31 @@ public class KNN {
      */
     public Map<Mushroom, Object> classify() {
         Map<Mushroom, Object> classifiedMush = new HashMap<>();
+        byte[] labels = classifyRows();
+        for(int row = 0; row < labels.length; row++) {
+            classifiedMush.put(mushroom(row), labels[row] == Class_Label.edible.ordinal() ? Class_Label.edible : Class_Label.poisonous);
+        }
+        return classifiedMush;
+    }
 
-        for(Mushroom mushroom : mushrooms) {
-            List<Mushroom> kNN = findKNN(mushroom);
+    /**
+     * Like classify, with the results by row of the training set.
+     * @return ordinal of the class label of the majority of the K nearest neighbours of every row
+     */
+    public byte[] classifyRows() {
+        byte[] labels = new byte[table.size()];
+        int[] kNN = new int[k];
+        for(int row = 0; row < labels.length; row++) {
+            int neighbours = findKNN(row, kNN);
             int edible = 0;
-            for(Mushroom neighbour : kNN){
-                if(neighbour.getAttributeValue(Class_Label.class).equals(Class_Label.edible)) {
+            for(int i = 0; i < neighbours; i++) {
+                if(table.labelOrdinal(kNN[i]) == Class_Label.edible.ordinal()) {
                     edible++;
                 }
             }
-
-            if(edible > (kNN.size()/2)) {
-                classifiedMush.put(mushroom, Class_Label.edible);
-            } else {
-                classifiedMush.put(mushroom, Class_Label.poisonous);
-            }
+            labels[row] = (byte) (edible > neighbours / 2 ? Class_Label.edible.ordinal() : Class_Label.poisonous.ordinal());
         }
-
-        return classifiedMush;
+        return labels;
     }
 
     /**
@@ -50,27 +86,52 @@ public class KNN {
      * @return - a mapping from mushroom to predicted class label
      */
     public Map<Mushroom, Object> predictedClass(Map<Mushroom, Object> trainedMushrooms, List<Mushroom> mushroomsToCompare){
+        // both sides are copied into tables once, the distances are computed on the columns
+        List<Mushroom> trained = new ArrayList<>(trainedMushrooms.size());
+        byte[] trainedLabels = new byte[trainedMushrooms.size()];
+        for(Map.Entry<Mushroom, Object> entry : trainedMushrooms.entrySet()){
+            trainedLabels[trained.size()] = (byte) ((Class_Label) entry.getValue()).ordinal();
+            trained.add(entry.getKey());
+        }
+        byte[] labels = predictedClass(MushroomTable.of(trained), trainedLabels, MushroomTable.of(mushroomsToCompare));
+
         Map<Mushroom, Object> results = new HashMap<>();
-        for(Mushroom mushroomPred : mushroomsToCompare){
+        for(int i = 0; i < labels.length; i++) {
+            results.put(mushroomsToCompare.get(i), labels[i] == Class_Label.edible.ordinal() ? Class_Label.edible : Class_Label.poisonous);
+        }
+        return results;
+    }
+
+    /**
+     * Like predictedClass, on tables: the predicted label of a row is the label of the majority of the classified
+     * rows within MAX_DISTANCE of it, poisonous on a tie.
+     * @param trained the classified mushrooms used as a basis for prediction
+     * @param trainedLabels ordinal of the classified label of every row of trained, see classifyRows
+     * @param rows the mushrooms to predict the class label of
+     * @return ordinal of the predicted class label of every row
+     */
+    public byte[] predictedClass(MushroomTable trained, byte[] trainedLabels, MushroomTable rows) {
+        byte[] results = new byte[rows.size()];
+        for(int row = 0; row < results.length; row++) {
             int ed = 0;
             int pois = 0;
-            for(Map.Entry<Mushroom, Object> entry : trainedMushrooms.entrySet()){
-                Mushroom mush = entry.getKey();
-                Object classLabel = entry.getValue();
-                double dist = euclideanDistance(mushroomPred, mush);
-                if(dist <= 2 ) {
-                    if(classLabel.equals(Class_Label.edible)) ed++;
+            for(int other = 0; other < trained.size(); other++) {
+                double dist = euclideanDistance(rows, row, trained, other);
+                if(dist <= MAX_DISTANCE) {
+                    if(trainedLabels[other] == Class_Label.edible.ordinal()) ed++;
                     else pois++;
                 }
             }
-
-            if(ed > pois) {
-                results.put(mushroomPred, Class_Label.edible);
-            } else results.put(mushroomPred, Class_Label.poisonous);
+            results[row] = (byte) (ed > pois ? Class_Label.edible.ordinal() : Class_Label.poisonous.ordinal());
         }
         return results;
     }
 
+    // the training set as a table
+    public MushroomTable getTable() {
+        return table;
+    }
+
     /**
      * Checks the class label of the classification with the actual class label and increments the appropriate counter based on the result
      * @param classifiedMush - a mapping of mushrooms to the classified class label
@@ -100,45 +161,56 @@ public class KNN {
     }
 
     /**
-     * Compares all mushrooms other mushrooms in the trianing set with the passed mushroom and finds its K nearest neighbours
-     * @param mushroom - the mushroom to find nearest neighbours for
-     * @return - a list of the K nearest neighbours
+     * Compares all other mushrooms in the training set with the mushroom in a row and finds its K nearest neighbours.
+     * Of the neighbours at the same distance only the last one in the training set is kept, so every neighbour is at
+     * a different distance.
+     * @param row - the row of the mushroom to find nearest neighbours for
+     * @param kNN - receives the rows of the neighbours, nearest first
+     * @return - the number of neighbours found, at most K
      */
-    private List<Mushroom> findKNN(Mushroom mushroom){
-        Map<Double, Mushroom> distances = new TreeMap<>();
-        List<Mushroom> kNN = new ArrayList<>();
-
-        for(Mushroom mush : mushrooms){
-            if(!mushroom.equals(mush)) {
-                double dist = euclideanDistance(mushroom, mush);
-                distances.put(dist, mush);
+    private int findKNN(int row, int[] kNN){
+        // the distance only depends on the number of attributes that differ, so neighbours are found by that count
+        int[] lastWithMismatches = new int[attributeIds.length + 1];
+        Arrays.fill(lastWithMismatches, -1);
+
+        for(int other = 0; other < table.size(); other++){
+            if(other != row) {
+                lastWithMismatches[mismatches(table, row, table, other)] = other;
             }
         }
 
         int count = 0;
-        for(Map.Entry<Double, Mushroom> entry : distances.entrySet()){
-            if(count < k) kNN.add(entry.getValue());
-            count++;
+        for(int mismatches = 0; mismatches < lastWithMismatches.length && count < k; mismatches++){
+            if(lastWithMismatches[mismatches] >= 0) kNN[count++] = lastWithMismatches[mismatches];
         }
 
-        return kNN;
+        return count;
     }
 
     /**
      *
-     * @param mushroomInFocus - mushroom we are looking from
-     * @param mushroomToCompare - mushroom we are looking at
+     * @param inFocus - table of the mushroom we are looking from
+     * @param rowInFocus - row of the mushroom we are looking from
+     * @param toCompare - table of the mushroom we are looking at
+     * @param rowToCompare - row of the mushroom we are looking at
      * @return - the euclidean distance between the two mushrooms
      */
-    private double euclideanDistance(Mushroom mushroomInFocus, Mushroom mushroomToCompare){
+    private double euclideanDistance(MushroomTable inFocus, int rowInFocus, MushroomTable toCompare, int rowToCompare){
+        double dist = Math.sqrt(mismatches(inFocus, rowInFocus, toCompare, rowToCompare));
+        return dist;
+    }
+
+    // number of attributes the two rows have different values for
+    private int mismatches(MushroomTable inFocus, int rowInFocus, MushroomTable toCompare, int rowToCompare) {
         int count = 0;
-        for(Object attribute : listOfAttributes) {
-            Object value1 = mushroomInFocus.getAttributeValue(attribute);
-            Object value2 = mushroomToCompare.getAttributeValue(attribute);
-            if(!value1.equals(value2)) count++;
+        for(int attrId : attributeIds) {
+            if(inFocus.column(attrId)[rowInFocus] != toCompare.column(attrId)[rowToCompare]) count++;
         }
+        return count;
+    }
 
-        double dist = Math.sqrt(count);
-        return dist;
+    // the mushroom of a row of the training set, the caller's own object if the set was given as a list
+    private Mushroom mushroom(int row) {
+        return mushrooms != null ? mushrooms.get(row) : table.getMushroom(row);
     }
 }
@@ -0,0 +1,98 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import enums.Class_Label;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of a KNN model, i.e. the classified mushrooms KNN.predictedClass compares against.
+ * The prototypes are copied into one byte array of value ordinals, and a mushroom is predicted like
+ * predictedClass does: the majority label of the prototypes within KNN.MAX_DISTANCE, poisonous on a tie.
+ */
+public final class KnnClassifier implements Classifier {
+    private static final Class_Label[] LABELS = Class_Label.values();
+
+    private final int[] attributeIds;
+    // value ordinals of the attributes of every prototype, one prototype after the other
+    private final byte[] prototypes;
+    private final byte[] labels;
+    // prototypes further apart than this many attributes aren't neighbours
+    private final int maxMismatches;
+
+    private KnnClassifier(int[] attributeIds, byte[] prototypes, byte[] labels) {
+        this.attributeIds = attributeIds;
+        this.prototypes = prototypes;
+        this.labels = labels;
+        // the distance is sqrt(mismatches), compared without taking the root
+        maxMismatches = (int) Math.floor(KNN.MAX_DISTANCE * KNN.MAX_DISTANCE);
+    }
+
+    /**
+     * @param knn the classifier, gives the attributes the distance is measured on
+     * @param trainedMushrooms the classified mushrooms used as a basis for prediction
+     * @return the snapshot, later changes to the map don't affect it
+     */
+    public static KnnClassifier of(KNN knn, Map<Mushroom, Object> trainedMushrooms) {
+        int[] attributeIds = knn.getAttributeIds().clone();
+        byte[] prototypes = new byte[trainedMushrooms.size() * attributeIds.length];
+        byte[] labels = new byte[trainedMushrooms.size()];
+
+        int i = 0;
+        for(Map.Entry<Mushroom, Object> entry : trainedMushrooms.entrySet()) {
+            for(int a = 0; a < attributeIds.length; a++) {
+                prototypes[i * attributeIds.length + a] = (byte) entry.getKey().valueOrdinal(attributeIds[a]);
+            }
+            labels[i++] = (byte) ((Class_Label) entry.getValue()).ordinal();
+        }
+        return new KnnClassifier(attributeIds, prototypes, labels);
+    }
+
+    @Override
+    public Class_Label classify(Mushroom mushroom) {
+        byte[] ordinals = new byte[attributeIds.length];
+        for(int a = 0; a < ordinals.length; a++) {
+            ordinals[a] = (byte) mushroom.valueOrdinal(attributeIds[a]);
+        }
+        return LABELS[nearestLabel(ordinals)];
+    }
+
+    @Override
+    public Class_Label classify(MushroomTable table, int row) {
+        return LABELS[classifyOrdinal(table, row)];
+    }
+
+    @Override
+    public int classifyOrdinal(MushroomTable table, int row) {
+        byte[] ordinals = new byte[attributeIds.length];
+        for(int a = 0; a < ordinals.length; a++) {
+            ordinals[a] = (byte) table.valueOrdinal(row, attributeIds[a]);
+        }
+        return nearestLabel(ordinals);
+    }
+
+    @Override
+    public long usedAttributes() {
+        long used = 0L;
+        for(int attrId : attributeIds) {
+            used |= 1L << attrId;
+        }
+        return used;
+    }
+
+    private int nearestLabel(byte[] ordinals) {
+        int edible = 0;
+        int poisonous = 0;
+        for(int p = 0, offset = 0; p < labels.length; p++, offset += ordinals.length) {
+            int mismatches = 0;
+            for(int a = 0; a < ordinals.length && mismatches <= maxMismatches; a++) {
+                if(prototypes[offset + a] != ordinals[a]) mismatches++;
+            }
+            if(mismatches <= maxMismatches) {
+                if(labels[p] == Class_Label.edible.ordinal()) edible++;
+                else poisonous++;
+            }
+        }
+        return edible > poisonous ? Class_Label.edible.ordinal() : Class_Label.poisonous.ordinal();
+    }
+}
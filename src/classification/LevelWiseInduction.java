@@ -0,0 +1,182 @@
+package classification;
+
+import data.MushroomTable;
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grows a decision tree breadth first, one level at a time. Instead of visiting the rows of one node after the
+ * other, every level makes a single sequential pass over the table: each row is moved from the node it was in
+ * to the child of that node it belongs to, and counted in the contingency table of that child. The splits of
+ * the whole level are chosen once the pass is done. The table is only ever read front to back, which is what
+ * training on data that doesn't fit in memory would need.
+ * Gives the same tree as InductionEngine building depth first, unless the stopping rules limit the number of nodes.
+ */
+class LevelWiseInduction {
+    private final TrainingData data;
+    private final MushroomTable table;
+    private final InductionEngine.AttributeSelection selection;
+    private final StoppingCheck stopping;
+
+    // every node created so far, a node's id is its position in the list
+    private final List<Node> nodes = new ArrayList<>();
+    // id of the child for value ordinal 0 of every node, the other children follow it, -1 when not split
+    private int[] firstChild = new int[64];
+    // position of every node in the frontier, -1 when it's not open
+    private int[] slot = new int[64];
+    // id of the node every row is in
+    private final int[] rowNode;
+
+    LevelWiseInduction(TrainingData data, InductionEngine.AttributeSelection selection, StoppingCheck stopping) {
+        this.data = data;
+        this.table = data.getTable();
+        this.selection = selection;
+        this.stopping = stopping;
+        rowNode = new int[data.size()];
+    }
+
+    /**
+     * Builds the tree for all the training data. Afterwards the rows of the training data are ordered
+     * the way the depth first build leaves them, so every node owns a range of the row index array.
+     * @param attributes mask of the attributes the tree may split on
+     * @return root node of the decision tree
+     */
+    Node generateDecisionTree(long attributes) {
+        // ids of the nodes that still have to be split, every row starts in the root
+        List<Integer> frontier = new ArrayList<>();
+        Node root = createNode(data.size(), data.countPoisonous(0, data.size()), attributes, 0, frontier);
+
+        for(int depth = 0; !frontier.isEmpty(); depth++) {
+            ContingencyTable[] counts = new ContingencyTable[frontier.size()];
+            for(int i = 0; i < counts.length; i++) {
+                counts[i] = new ContingencyTable(nodes.get(frontier.get(i)).getAttributes());
+            }
+
+            // one pass over the table: move the rows of the nodes split last level down, count the rows of open nodes
+            for(int row = 0; row < rowNode.length; row++) {
+                int id = route(row);
+                if(slot[id] >= 0) {
+                    counts[slot[id]].add(table, row);
+                }
+            }
+
+            // choose the splits of the whole level, the children that aren't leaves make up the next level
+            List<Integer> next = new ArrayList<>();
+            for(int i = 0; i < counts.length; i++) {
+                split(frontier.get(i), counts[i], depth, next);
+            }
+            frontier = next;
+        }
+
+        // move the rows of the last level's splits to their leaves
+        for(int row = 0; row < rowNode.length; row++) {
+            route(row);
+        }
+
+        // give every node its range of the row index array, in depth first order, and sort the rows into the leaves
+        int[] starts = new int[nodes.size()];
+        assignOffsets(0, 0, starts);
+        data.arrange(rowNode, starts);
+
+        root.setParent(root);
+        return root;
+    }
+
+    // moves a row into the child of its node if the node has been split, returns the id of the row's node
+    private int route(int row) {
+        int id = rowNode[row];
+        if(firstChild[id] >= 0) {
+            id = firstChild[id] + table.valueOrdinal(row, nodes.get(id).getSplitAttributeId());
+            rowNode[row] = id;
+        }
+        return id;
+    }
+
+    // creates a node with the given class counts, it's made a leaf if it can't be split, else it's added to the frontier
+    private Node createNode(int length, int poisonous, long attributes, int depth, List<Integer> frontier) {
+        Node node = new Node(0, length, attributes);
+        int id = nodes.size();
+        nodes.add(node);
+        if(id == firstChild.length) {
+            firstChild = Arrays.copyOf(firstChild, id * 2);
+            slot = Arrays.copyOf(slot, id * 2);
+        }
+        firstChild[id] = -1;
+        slot[id] = -1;
+
+        // if all tuples have same class label, return node with that class label
+        if(poisonous == 0 || poisonous == length) {
+            node.setLabel(poisonous == 0 ? Class_Label.edible : Class_Label.poisonous);
+            node.setLeaf();
+        // if there's no attributes or a stopping rule cuts the node off, return node with majority class label
+        } else if(attributes == 0L || stopping.stopBeforeCounting(depth, length)) {
+            node.setLabel(majority(length, poisonous));
+            node.setLeaf();
+        } else {
+            slot[id] = frontier.size();
+            frontier.add(id);
+        }
+        return node;
+    }
+
+    // splits an open node by the selected attribute, or makes it a leaf if none is good enough
+    private void split(int id, ContingencyTable counts, int depth, List<Integer> next) {
+        Node node = nodes.get(id);
+        slot[id] = -1;
+        int poisonous = counts.classCount(Class_Label.poisonous.ordinal());
+        Class_Label majority = majority(counts.size(), poisonous);
+
+        int attrId = selection.select(counts, node.getAttributes());
+        if(attrId < 0 || stopping.stopAfterSelection(counts, attrId)) {
+            node.setLabel(majority);
+            node.setLeaf();
+            return;
+        }
+        node.setSplittingCriterion(Schema.attribute(attrId));
+
+        // the children may split on every attribute of this node except the splitting criterion
+        long childAttributes = node.getAttributes() & ~(1L << attrId);
+        firstChild[id] = nodes.size();
+        for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+            int length = counts.valueCount(attrId, ordinal);
+            Node child;
+            if(length == 0) {
+                // creating leaf node with empty att list, because it's not needed further
+                child = createNode(0, 0, 0L, depth + 1, next);
+                // setting class label of leaf to majority
+                child.setLabel(majority);
+            } else {
+                child = createNode(length, counts.count(attrId, ordinal, Class_Label.poisonous.ordinal()), childAttributes,
+                        depth + 1, next);
+            }
+            child.setValue(Schema.value(attrId, ordinal));
+            child.setParent(node);
+            node.addChild(child);
+        }
+    }
+
+    // gives the subtree of a node its ranges starting at offset, returns the end of the subtree's range
+    private int assignOffsets(int id, int offset, int[] starts) {
+        Node node = nodes.get(id);
+        node.setOffset(offset);
+        starts[id] = offset;
+        if(firstChild[id] < 0) {
+            return offset + node.getLength();
+        }
+        for(int i = 0; i < node.childCount(); i++) {
+            offset = assignOffsets(firstChild[id] + i, offset, starts);
+        }
+        return offset;
+    }
+
+    // majority class label, ties go to poisonous
+    private static Class_Label majority(int length, int poisonous) {
+        int edible = length - poisonous;
+        if(edible > poisonous) return Class_Label.edible;
+        else return Class_Label.poisonous;
+    }
+}
@@ -0,0 +1,152 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+
+/**
+ * A trained decision tree turned into a table with the predicted label for every combination of values of
+ * the attributes the tree splits on. The values of a mushroom make up a mixed radix number, every attribute
+ * being a digit with as many values as the attribute has, which is the position of its label in the table.
+ * Classifying is one index computation and one array load, however deep the tree is.
+ * Only works for trees that split on few attributes, the table has the product of their value counts entries.
+ */
+public final class LookupTableClassifier implements Classifier {
+    // largest table built unless asked for another budget, a byte per entry
+    public static final int DEFAULT_BUDGET = 1 << 20;
+
+    private static final Class_Label[] LABELS = Class_Label.values();
+
+    // ids of the attributes the tree splits on, and the weight of each in the key
+    private final int[] attrIds;
+    private final int[] strides;
+    // ordinal of the predicted label by key, -1 when the tree has no label
+    private final byte[] labels;
+
+    private LookupTableClassifier(int[] attrIds, int[] strides, byte[] labels) {
+        this.attrIds = attrIds;
+        this.strides = strides;
+        this.labels = labels;
+    }
+
+    /**
+     * @param root root node of the decision tree
+     * @param budget most entries the table may have
+     * @return whether the table of the tree fits in the budget
+     */
+    public static boolean fits(Node root, int budget) {
+        return tableSize(usedAttributes(root)) <= budget;
+    }
+
+    /**
+     * Builds the table of a trained tree.
+     * @param root root node of the decision tree
+     * @param budget most entries the table may have
+     * @return the classifier
+     * @throws IllegalArgumentException if the table would have more entries than the budget
+     */
+    public static LookupTableClassifier of(Node root, int budget) {
+        long used = usedAttributes(root);
+        long size = tableSize(used);
+        if(size > budget) {
+            throw new IllegalArgumentException("The tree needs a table of " + size + " entries, the budget is " + budget);
+        }
+
+        int[] attrIds = new int[Long.bitCount(used)];
+        int[] strides = new int[attrIds.length];
+        int stride = 1;
+        for(int i = 0; i < attrIds.length; i++) {
+            attrIds[i] = Long.numberOfTrailingZeros(used);
+            used &= used - 1;
+            strides[i] = stride;
+            stride *= Schema.valueCount(attrIds[i]);
+        }
+
+        // classify every combination of values, counting up in the mixed radix
+        byte[] labels = new byte[(int) size];
+        int[] ordinals = new int[Schema.ATTRIBUTE_COUNT];
+        for(int key = 0; key < labels.length; key++) {
+            Class_Label label = findClass(root, ordinals);
+            labels[key] = (byte) (label == null ? -1 : label.ordinal());
+            for(int i = 0; i < attrIds.length && ++ordinals[attrIds[i]] == Schema.valueCount(attrIds[i]); i++) {
+                ordinals[attrIds[i]] = 0;
+            }
+        }
+        return new LookupTableClassifier(attrIds, strides, labels);
+    }
+
+    // mask of the attributes the tree splits on
+    private static long usedAttributes(Node node) {
+        long used = 0L;
+        if(!node.isLeaf() && node.getSplitAttributeId() >= 0) {
+            used |= 1L << node.getSplitAttributeId();
+            for(int i = 0; i < node.childCount(); i++) {
+                used |= usedAttributes(node.child(i));
+            }
+        }
+        return used;
+    }
+
+    private static long tableSize(long attributes) {
+        long size = 1;
+        for(; attributes != 0L && size <= Integer.MAX_VALUE; attributes &= attributes - 1) {
+            size *= Schema.valueCount(Long.numberOfTrailingZeros(attributes));
+        }
+        return size;
+    }
+
+    // the same walk as ID3.findClass, on the value ordinals of every attribute
+    private static Class_Label findClass(Node node, int[] ordinals) {
+        int attrId = node.getSplitAttributeId();
+        if(attrId >= 0 && !node.isLeaf()) {
+            Node child = node.getChild(ordinals[attrId]);
+            if(child != null) {
+                return findClass(child, ordinals);
+            }
+        }
+        return node.getM_Class();
+    }
+
+    @Override
+    public Class_Label classify(Mushroom mushroom) {
+        int key = 0;
+        for(int i = 0; i < attrIds.length; i++) {
+            key += mushroom.valueOrdinal(attrIds[i]) * strides[i];
+        }
+        return label(labels[key]);
+    }
+
+    @Override
+    public Class_Label classify(MushroomTable table, int row) {
+        return label(classifyOrdinal(table, row));
+    }
+
+    @Override
+    public int classifyOrdinal(MushroomTable table, int row) {
+        int key = 0;
+        for(int i = 0; i < attrIds.length; i++) {
+            key += table.column(attrIds[i])[row] * strides[i];
+        }
+        return labels[key];
+    }
+
+    @Override
+    public long usedAttributes() {
+        long used = 0L;
+        for(int attrId : attrIds) {
+            used |= 1L << attrId;
+        }
+        return used;
+    }
+
+    private static Class_Label label(int ordinal) {
+        return ordinal < 0 ? null : LABELS[ordinal];
+    }
+
+    // number of entries of the table
+    public int size() {
+        return labels.length;
+    }
+}
@@ -0,0 +1,316 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * A versioned binary file format for trained models, loaded through a memory map. The loaded classifier reads
+ * the mapped bytes directly, so loading doesn't build any objects per node or prototype and the pages are
+ * only read in when they're used.
+ *
+ * All numbers are big endian. The file starts with a header of 24 bytes:
+ * magic "MUSH" (int), format version (short), kind of model (short), Schema.fingerprint() (long),
+ * number of records (int) and a kind specific int. It is followed by the records:
+ * - KIND_TREE: the entries of a FlatDecisionTree in breadth first order, 8 bytes each: child base (int),
+ *   split attribute id (short, -1 for a leaf), class label ordinal (byte, -1 for none) and a byte of padding.
+ *   The kind specific int is 0.
+ * - KIND_KNN: the kind specific int is the number of attributes a, followed by their ids (a bytes). Every record is
+ *   a prototype of a + 1 bytes: the value ordinals of the attributes followed by the class label ordinal.
+ */
+public final class ModelFile {
+    public static final int MAGIC = 0x4D555348;
+    public static final short VERSION = 1;
+    public static final short KIND_TREE = 1;
+    public static final short KIND_KNN = 2;
+
+    private static final int HEADER_SIZE = 24;
+    private static final int TREE_RECORD_SIZE = 8;
+    private static final Class_Label[] LABELS = Class_Label.values();
+
+    private ModelFile() {
+    }
+
+    /**
+     * Writes a decision tree.
+     * @param file file to write, replaced if it exists
+     * @param root root node of the decision tree
+     */
+    public static void writeTree(Path file, Node root) throws IOException {
+        FlatDecisionTree tree = FlatDecisionTree.of(root);
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            writeHeader(out, KIND_TREE, tree.size(), 0);
+            for(int node = 0; node < tree.size(); node++) {
+                out.writeInt(tree.childBase(node));
+                out.writeShort(tree.splitAttr(node));
+                out.writeByte(tree.leafLabel(node));
+                out.writeByte(0);
+            }
+        }
+    }
+
+    /**
+     * Writes the prototypes of a KNN classifier, i.e. the mushrooms predictedClass compares against.
+     * @param file file to write, replaced if it exists
+     * @param knn the classifier, gives the attributes the distance is measured on
+     * @param trainedMushrooms the classified mushrooms used as a basis for prediction
+     */
+    public static void writeKnn(Path file, KNN knn, Map<Mushroom, Object> trainedMushrooms) throws IOException {
+        int[] attributeIds = knn.getAttributeIds();
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            writeHeader(out, KIND_KNN, trainedMushrooms.size(), attributeIds.length);
+            for(int attrId : attributeIds) {
+                out.writeByte(attrId);
+            }
+            for(Map.Entry<Mushroom, Object> entry : trainedMushrooms.entrySet()) {
+                for(int attrId : attributeIds) {
+                    out.writeByte(entry.getKey().valueOrdinal(attrId));
+                }
+                out.writeByte(((Class_Label) entry.getValue()).ordinal());
+            }
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, short kind, int records, int extra) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(kind);
+        out.writeLong(Schema.fingerprint());
+        out.writeInt(records);
+        out.writeInt(extra);
+    }
+
+    /**
+     * Maps a model file and checks its header.
+     * @param file file written by writeTree or writeKnn
+     * @return a classifier reading the mapped file
+     * @throws IOException if the file can't be read, isn't a model file of this version, was written for another
+     * schema or has a record that doesn't fit the schema, e.g. an attribute id out of range or a child outside the tree
+     */
+    public static Classifier load(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        // the mapping stays valid after the channel is closed
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + ": not a model file");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if(buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + ": not a model file");
+        }
+        if(buffer.getShort(4) != VERSION) {
+            throw new IOException(file + ": unsupported model file version " + buffer.getShort(4));
+        }
+        if(buffer.getLong(8) != Schema.fingerprint()) {
+            throw new IOException(file + ": model was written for different attributes");
+        }
+        short kind = buffer.getShort(6);
+        int records = buffer.getInt(16);
+        int extra = buffer.getInt(20);
+
+        switch(kind) {
+            case KIND_TREE:
+                if(records < 1) {
+                    throw new IOException(file + ": tree without nodes");
+                }
+                checkSize(file, buffer, (long) records * TREE_RECORD_SIZE);
+                return new MappedTree(buffer, checkTree(file, buffer, records));
+            case KIND_KNN:
+                if(records < 0 || extra < 0 || extra > Schema.ATTRIBUTE_COUNT) {
+                    throw new IOException(file + ": corrupt model file");
+                }
+                checkSize(file, buffer, extra + (long) records * (extra + 1));
+                checkKnn(file, buffer, records, extra);
+                return new MappedKnn(buffer, records, extra);
+            default:
+                throw new IOException(file + ": unknown kind of model " + kind);
+        }
+    }
+
+    private static void checkSize(Path file, ByteBuffer buffer, long bodySize) throws IOException {
+        if(buffer.capacity() != HEADER_SIZE + bodySize) {
+            throw new IOException(file + ": truncated or corrupt model file");
+        }
+    }
+
+    /**
+     * Checks every entry of a tree, so walking it can't leave the records or loop: the split attribute is an
+     * attribute id, the children of a split come after it and all of them are records, and labels are ordinals.
+     * @return mask of the attributes the tree splits on
+     */
+    private static long checkTree(Path file, ByteBuffer buffer, int records) throws IOException {
+        long used = 0L;
+        for(int node = 0, entry = HEADER_SIZE; node < records; node++, entry += TREE_RECORD_SIZE) {
+            int attrId = buffer.getShort(entry + 4);
+            if(attrId >= Schema.ATTRIBUTE_COUNT || attrId < -1) {
+                throw new IOException(file + ": node " + node + " splits on unknown attribute " + attrId);
+            }
+            if(attrId >= 0) {
+                int childBase = buffer.getInt(entry);
+                if(childBase <= node || childBase > records - Schema.valueCount(attrId)) {
+                    throw new IOException(file + ": node " + node + " has its children outside the tree");
+                }
+                used |= 1L << attrId;
+            } else {
+                checkLabel(file, buffer.get(entry + 6), true, "node " + node);
+            }
+        }
+        return used;
+    }
+
+    // the attribute ids and the labels of the prototypes, the value ordinals are only ever compared
+    private static void checkKnn(Path file, ByteBuffer buffer, int records, int attributes) throws IOException {
+        for(int i = 0; i < attributes; i++) {
+            int attrId = buffer.get(HEADER_SIZE + i);
+            if(attrId < 0 || attrId >= Schema.ATTRIBUTE_COUNT) {
+                throw new IOException(file + ": unknown attribute " + attrId);
+            }
+        }
+        for(int record = 0, entry = HEADER_SIZE + attributes; record < records; record++, entry += attributes + 1) {
+            checkLabel(file, buffer.get(entry + attributes), false, "prototype " + record);
+        }
+    }
+
+    private static void checkLabel(Path file, int ordinal, boolean noneAllowed, String record) throws IOException {
+        if(ordinal >= Schema.CLASS_COUNT || ordinal < (noneAllowed ? -1 : 0)) {
+            throw new IOException(file + ": " + record + " has unknown class label " + ordinal);
+        }
+    }
+
+    /**
+     * The decision tree of a mapped file, walked like a FlatDecisionTree with the entries read from the buffer.
+     */
+    private static final class MappedTree implements Classifier {
+        private final ByteBuffer buffer;
+        // the attributes the nodes split on
+        private final long usedAttributes;
+
+        MappedTree(ByteBuffer buffer, long usedAttributes) {
+            this.buffer = buffer;
+            this.usedAttributes = usedAttributes;
+        }
+
+        @Override
+        public Class_Label classify(Mushroom mushroom) {
+            int entry = HEADER_SIZE;
+            int attrId;
+            while((attrId = buffer.getShort(entry + 4)) >= 0) {
+                entry = HEADER_SIZE + (buffer.getInt(entry) + mushroom.valueOrdinal(attrId)) * TREE_RECORD_SIZE;
+            }
+            return label(buffer.get(entry + 6));
+        }
+
+        @Override
+        public Class_Label classify(MushroomTable table, int row) {
+            return label(classifyOrdinal(table, row));
+        }
+
+        @Override
+        public int classifyOrdinal(MushroomTable table, int row) {
+            int entry = HEADER_SIZE;
+            int attrId;
+            while((attrId = buffer.getShort(entry + 4)) >= 0) {
+                entry = HEADER_SIZE + (buffer.getInt(entry) + table.column(attrId)[row]) * TREE_RECORD_SIZE;
+            }
+            return buffer.get(entry + 6);
+        }
+
+        @Override
+        public long usedAttributes() {
+            return usedAttributes;
+        }
+    }
+
+    /**
+     * The prototypes of a mapped file, predicted like KNN.predictedClass: the majority label of the prototypes
+     * within KNN.MAX_DISTANCE, poisonous on a tie.
+     */
+    private static final class MappedKnn implements Classifier {
+        private final ByteBuffer buffer;
+        private final int records;
+        private final int[] attributeIds;
+        private final int recordSize;
+        private final int firstRecord;
+        // prototypes further apart than this many attributes aren't neighbours
+        private final int maxMismatches;
+
+        MappedKnn(ByteBuffer buffer, int records, int attributes) {
+            this.buffer = buffer;
+            this.records = records;
+            attributeIds = new int[attributes];
+            for(int i = 0; i < attributes; i++) {
+                attributeIds[i] = buffer.get(HEADER_SIZE + i);
+            }
+            recordSize = attributes + 1;
+            firstRecord = HEADER_SIZE + attributes;
+            // the distance is sqrt(mismatches), compared without taking the root
+            maxMismatches = (int) Math.floor(KNN.MAX_DISTANCE * KNN.MAX_DISTANCE);
+        }
+
+        @Override
+        public Class_Label classify(Mushroom mushroom) {
+            byte[] ordinals = new byte[attributeIds.length];
+            for(int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = (byte) mushroom.valueOrdinal(attributeIds[i]);
+            }
+            return label(nearestLabel(ordinals));
+        }
+
+        @Override
+        public Class_Label classify(MushroomTable table, int row) {
+            return label(classifyOrdinal(table, row));
+        }
+
+        @Override
+        public int classifyOrdinal(MushroomTable table, int row) {
+            byte[] ordinals = new byte[attributeIds.length];
+            for(int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = (byte) table.valueOrdinal(row, attributeIds[i]);
+            }
+            return nearestLabel(ordinals);
+        }
+
+        @Override
+        public long usedAttributes() {
+            long used = 0L;
+            for(int attrId : attributeIds) {
+                used |= 1L << attrId;
+            }
+            return used;
+        }
+
+        private int nearestLabel(byte[] ordinals) {
+            int edible = 0;
+            int poisonous = 0;
+            for(int record = 0, entry = firstRecord; record < records; record++, entry += recordSize) {
+                int mismatches = 0;
+                for(int i = 0; i < ordinals.length && mismatches <= maxMismatches; i++) {
+                    if(buffer.get(entry + i) != ordinals[i]) mismatches++;
+                }
+                if(mismatches <= maxMismatches) {
+                    if(buffer.get(entry + ordinals.length) == Class_Label.edible.ordinal()) edible++;
+                    else poisonous++;
+                }
+            }
+            return edible > poisonous ? Class_Label.edible.ordinal() : Class_Label.poisonous.ordinal();
+        }
+    }
+
+    private static Class_Label label(int ordinal) {
+        return ordinal < 0 ? null : LABELS[ordinal];
+    }
+}
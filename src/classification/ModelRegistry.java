@@ -0,0 +1,202 @@
+package classification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Holds the live version of a trained model, so it can be replaced while predictions are being made.
+ * The current version and its history sit behind one AtomicReference: publishing and rolling back are a
+ * compare-and-set, and readers never block. A reader leases the current version for as long as it uses the
+ * model, and every version counts its leases, so after a swap the replaced version can be drained before
+ * whatever it holds is released.
+ *
+ * The model can be anything the prediction code works on, e.g. a Classifier for BatchClassifier and the
+ * scoring server, the root Node for ID3.classify or the classified mushrooms for KNN.predictedClass.
+ * A published model is shared by all readers, so it must not be modified afterwards.
+ *
+ * <pre>
+ * try(ModelRegistry.Lease&lt;Node&gt; lease = trees.acquire()) {
+ *     label = ID3.classify(lease.getModel(), mushroom);
+ * }
+ * </pre>
+ */
+public class ModelRegistry<M> {
+    // number of replaced versions kept for rolling back
+    public static final int DEFAULT_HISTORY = 4;
+
+    private final AtomicReference<State<M>> state;
+    private final AtomicInteger versionNumbers = new AtomicInteger();
+    private final int history;
+
+    public ModelRegistry(M model) {
+        this(model, DEFAULT_HISTORY);
+    }
+
+    /**
+     * @param model the first version of the model
+     * @param history number of replaced versions to keep for rolling back
+     */
+    public ModelRegistry(M model, int history) {
+        this.history = history;
+        state = new AtomicReference<>(new State<>(newVersion(model), Collections.emptyList()));
+    }
+
+    // the live version, without leasing it
+    public Version<M> current() {
+        return state.get().current;
+    }
+
+    /**
+     * Makes a model the live version. Leases taken from now on get the new version, leases already taken
+     * keep the old one until they are closed.
+     * @param model the new version of the model
+     * @return the replaced version, see Version.awaitDrained
+     */
+    public Version<M> publish(M model) {
+        Version<M> version = newVersion(model);
+        while(true) {
+            State<M> current = state.get();
+            List<Version<M>> previous = new ArrayList<>(history);
+            if(history > 0) {
+                previous.add(current.current);
+                previous.addAll(current.previous.subList(0, Math.min(current.previous.size(), history - 1)));
+            }
+            if(state.compareAndSet(current, new State<>(version, Collections.unmodifiableList(previous)))) {
+                return current.current;
+            }
+        }
+    }
+
+    /**
+     * Makes the version before the live one live again, the live version is dropped from the history.
+     * @return the replaced version, see Version.awaitDrained
+     * @throws IllegalStateException if there is no version to go back to
+     */
+    public Version<M> rollback() {
+        while(true) {
+            State<M> current = state.get();
+            if(current.previous.isEmpty()) {
+                throw new IllegalStateException("No earlier version to roll back to");
+            }
+            List<Version<M>> previous = current.previous.subList(1, current.previous.size());
+            if(state.compareAndSet(current, new State<>(current.previous.get(0), previous))) {
+                return current.current;
+            }
+        }
+    }
+
+    /**
+     * Leases the live version, close the lease when done with the model.
+     * @return a lease on the current version
+     */
+    public Lease<M> acquire() {
+        while(true) {
+            Version<M> version = current();
+            version.inFlight.incrementAndGet();
+            // if the version was replaced in between, a drain may already have seen no leases
+            if(current() == version) {
+                return new Lease<>(version);
+            }
+            version.inFlight.decrementAndGet();
+        }
+    }
+
+    private Version<M> newVersion(M model) {
+        return new Version<>(versionNumbers.incrementAndGet(), model);
+    }
+
+    /**
+     * The live version and the versions it replaced, latest first.
+     */
+    private static class State<M> {
+        private final Version<M> current;
+        private final List<Version<M>> previous;
+
+        State(Version<M> current, List<Version<M>> previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * A published model with its version number and the number of leases on it.
+     */
+    public static final class Version<M> {
+        private final int number;
+        private final M model;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        Version(int number, M model) {
+            this.number = number;
+            this.model = model;
+        }
+
+        // versions are numbered 1, 2, ... in the order they were published, a rollback doesn't renumber them
+        public int getNumber() {
+            return number;
+        }
+
+        public M getModel() {
+            return model;
+        }
+
+        // number of leases on the version that haven't been closed
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * Waits until every lease on the version is closed. Only useful once the version is replaced,
+         * as the live version can be leased again at any time.
+         * @param timeout longest time to wait
+         * @param unit unit of the timeout
+         * @return whether the version was drained in time
+         */
+        public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while(inFlight.get() > 0) {
+                if(Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if(System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(100_000);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Use of a version of the model. Closing it more than once has no further effect.
+     */
+    public static final class Lease<M> implements AutoCloseable {
+        private final Version<M> version;
+        private boolean closed;
+
+        Lease(Version<M> version) {
+            this.version = version;
+        }
+
+        public M getModel() {
+            return version.model;
+        }
+
+        public Version<M> getVersion() {
+            return version;
+        }
+
+        @Override
+        public void close() {
+            if(!closed) {
+                closed = true;
+                version.inFlight.decrementAndGet();
+            }
+        }
+    }
+}
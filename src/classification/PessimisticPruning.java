@@ -0,0 +1,82 @@
+package classification;
+
+import data.Node;
+import enums.Class_Label;
+
+/**
+ * Error based post-pruning as in C4.5. The error rate of a leaf on unseen data is estimated pessimistically as
+ * the upper limit of a confidence interval around its error rate on the training tuples, so a leaf with few
+ * tuples is assumed to be worse than it looks. Bottom up, a subtree is replaced by a leaf with the majority
+ * class label whenever the leaf's estimated number of errors isn't higher than that of the subtree.
+ */
+public class PessimisticPruning {
+    // z value of the default C4.5 confidence level of 25%, one sided
+    private static final double Z = 0.6745;
+
+    private final TrainingData data;
+    private int pruned;
+
+    /**
+     * @param data training data the tree was built from, every node's range of the row index array holds its tuples
+     */
+    public PessimisticPruning(TrainingData data) {
+        this.data = data;
+    }
+
+    /**
+     * Prunes the tree in place.
+     * @param root root node of the tree
+     * @return number of subtrees replaced by a leaf
+     */
+    public int prune(Node root) {
+        pruned = 0;
+        subtreeErrors(root);
+        return pruned;
+    }
+
+    // prunes the subtree below the node, returns the estimated errors of what is left of it
+    private double subtreeErrors(Node node) {
+        int from = node.getOffset();
+        int to = from + node.getLength();
+        int poisonous = data.countPoisonous(from, to);
+
+        if(node.childCount() == 0) {
+            int errors = node.getM_Class() == Class_Label.poisonous ? node.getLength() - poisonous : poisonous;
+            return estimatedErrors(errors, node.getLength());
+        }
+
+        double subtreeErrors = 0.0;
+        for(int i = 0; i < node.childCount(); i++) {
+            subtreeErrors += subtreeErrors(node.child(i));
+        }
+
+        // the node as a leaf labelled with the majority class label, ties go to poisonous
+        Class_Label majority = data.getMajorityClassLabel(from, to);
+        int errors = majority == Class_Label.poisonous ? node.getLength() - poisonous : poisonous;
+        double leafErrors = estimatedErrors(errors, node.getLength());
+        if(leafErrors <= subtreeErrors) {
+            node.prune(majority);
+            pruned++;
+            return leafErrors;
+        }
+        return subtreeErrors;
+    }
+
+    /**
+     * The pessimistic number of errors of a leaf, its tuples times the upper confidence limit of its error rate
+     * (normal approximation of the binomial, Wilson score interval).
+     * @param errors training tuples the leaf gets wrong
+     * @param tuples training tuples of the leaf
+     * @return estimated errors on as many unseen tuples, 0 for an empty leaf
+     */
+    public static double estimatedErrors(int errors, int tuples) {
+        if(tuples == 0) {
+            return 0.0;
+        }
+        double f = (double) errors / tuples;
+        double z2 = Z * Z;
+        double upper = (f + z2 / (2 * tuples) + Z * Math.sqrt(f / tuples - f * f / tuples + z2 / (4.0 * tuples * tuples)))
+                / (1 + z2 / tuples);
+        return tuples * upper;
+    }
+}
@@ -0,0 +1,265 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import data.Schema;
+import enums.Class_Label;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of predictions in front of another classifier. A mushroom is looked up by its values of the
+ * attributes the model uses (see Classifier.usedAttributes), packed into a long with as many bits per
+ * attribute as its value ordinals need, so mushrooms that only differ in attributes the model ignores share
+ * an entry. Worth it for models where a prediction costs much more than a lookup, like KNN, whose every
+ * prediction is a scan over all prototypes.
+ *
+ * The entries are spread over lock-striped segments, each an open addressing table with linear probing.
+ * A full segment evicts with the CLOCK algorithm: a hand sweeps the slots, clearing the referenced bit of
+ * entries that were hit since it last passed and evicting the first one that wasn't. The model is called
+ * outside of any lock, so concurrent misses on one segment don't wait for each other's predictions.
+ */
+public final class PredictionCache implements Classifier {
+    // number of segments, a power of two
+    private static final int STRIPES = 16;
+    // keys use at most 63 bits, so no key is -1
+    private static final long EMPTY = -1L;
+    private static final int MISS = Integer.MIN_VALUE;
+    private static final Class_Label[] LABELS = Class_Label.values();
+
+    private final Classifier classifier;
+    // the attributes in the key and the position of each in it
+    private final int[] attrIds;
+    private final int[] shifts;
+    private final Segment[] segments = new Segment[STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param classifier the model to cache the predictions of
+     * @param capacity most entries the cache holds, rounded up to a multiple of the number of segments
+     * @throws IllegalArgumentException if the values of the attributes the model uses don't fit into 63 bits
+     */
+    public PredictionCache(Classifier classifier, int capacity) {
+        this.classifier = classifier;
+        long used = classifier.usedAttributes();
+        attrIds = new int[Long.bitCount(used)];
+        shifts = new int[attrIds.length];
+        int bits = 0;
+        for(int i = 0; i < attrIds.length; i++) {
+            attrIds[i] = Long.numberOfTrailingZeros(used);
+            used &= used - 1;
+            shifts[i] = bits;
+            bits += 32 - Integer.numberOfLeadingZeros(Schema.valueCount(attrIds[i]) - 1);
+        }
+        if(bits > Long.SIZE - 1) {
+            throw new IllegalArgumentException("The model uses attributes with " + bits + " bits of values, keys have 63");
+        }
+
+        int segmentCapacity = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+        for(int i = 0; i < STRIPES; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    @Override
+    public Class_Label classify(Mushroom mushroom) {
+        long key = 0L;
+        for(int i = 0; i < attrIds.length; i++) {
+            key |= (long) mushroom.valueOrdinal(attrIds[i]) << shifts[i];
+        }
+        long hash = hash(key);
+        Segment segment = segment(hash);
+        int ordinal = segment.get(key, hash);
+        if(ordinal == MISS) {
+            misses.increment();
+            Class_Label label = classifier.classify(mushroom);
+            ordinal = label == null ? -1 : label.ordinal();
+            segment.put(key, hash, (byte) ordinal);
+        } else {
+            hits.increment();
+        }
+        return ordinal < 0 ? null : LABELS[ordinal];
+    }
+
+    @Override
+    public Class_Label classify(MushroomTable table, int row) {
+        int ordinal = classifyOrdinal(table, row);
+        return ordinal < 0 ? null : LABELS[ordinal];
+    }
+
+    @Override
+    public int classifyOrdinal(MushroomTable table, int row) {
+        long key = 0L;
+        for(int i = 0; i < attrIds.length; i++) {
+            key |= (long) table.column(attrIds[i])[row] << shifts[i];
+        }
+        long hash = hash(key);
+        Segment segment = segment(hash);
+        int ordinal = segment.get(key, hash);
+        if(ordinal == MISS) {
+            misses.increment();
+            ordinal = classifier.classifyOrdinal(table, row);
+            segment.put(key, hash, (byte) ordinal);
+        } else {
+            hits.increment();
+        }
+        return ordinal;
+    }
+
+    @Override
+    public long usedAttributes() {
+        return classifier.usedAttributes();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // fraction of the lookups that were hits, 0 before the first lookup
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    // number of entries evicted to make room for others
+    public long getEvictions() {
+        long evictions = 0;
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    // number of entries in the cache
+    public int size() {
+        int size = 0;
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses, hit rate %.1f%%, %d entries, %d evictions",
+                getHits(), getMisses(), getHitRate() * 100, size(), getEvictions());
+    }
+
+    // the high bits pick the segment, the low bits the slot in it
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - Integer.numberOfTrailingZeros(STRIPES)))];
+    }
+
+    // the finalizer of MurmurHash3, packed keys of similar rows only differ in a few low bits
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb33fe8ec53c5L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * One stripe of the cache, all access is synchronized on the segment. The table is kept at most half full.
+     */
+    private static final class Segment {
+        private final long[] keys;
+        private final byte[] labels;
+        private final boolean[] referenced;
+        private final int mask;
+        private final int capacity;
+        private int size;
+        private int hand;
+        private long evictions;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            int length = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            keys = new long[length];
+            labels = new byte[length];
+            referenced = new boolean[length];
+            mask = length - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        // label ordinal of the key, MISS if it isn't cached
+        synchronized int get(long key, long hash) {
+            for(int slot = (int) hash & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if(keys[slot] == key) {
+                    referenced[slot] = true;
+                    return labels[slot];
+                }
+            }
+            return MISS;
+        }
+
+        synchronized void put(long key, long hash, byte label) {
+            int slot = find(key, hash);
+            if(keys[slot] == EMPTY) {
+                if(size == capacity) {
+                    evict();
+                    // the eviction may have moved entries, including into the slot found
+                    slot = find(key, hash);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            labels[slot] = label;
+            referenced[slot] = true;
+        }
+
+        // slot of the key, or the empty slot that ends its probe sequence
+        private int find(long key, long hash) {
+            int slot = (int) hash & mask;
+            while(keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // advances the hand to the first entry that wasn't hit since the hand last passed, and removes it
+        private void evict() {
+            while(true) {
+                int slot = hand;
+                hand = (hand + 1) & mask;
+                if(keys[slot] == EMPTY) continue;
+                if(referenced[slot]) {
+                    referenced[slot] = false;
+                    continue;
+                }
+                remove(slot);
+                evictions++;
+                return;
+            }
+        }
+
+        // empties the slot and moves later entries of the probe sequence back, so no lookup stops early
+        private void remove(int hole) {
+            for(int slot = (hole + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                int home = (int) hash(keys[slot]) & mask;
+                // the entry can fill the hole if the hole lies between its home slot and its slot
+                if(((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    keys[hole] = keys[slot];
+                    labels[hole] = labels[slot];
+                    referenced[hole] = referenced[slot];
+                    hole = slot;
+                }
+            }
+            keys[hole] = EMPTY;
+            referenced[hole] = false;
+            size--;
+        }
+    }
+}
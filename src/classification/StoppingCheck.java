@@ -0,0 +1,86 @@
+package classification;
+
+import data.Schema;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Applies the stopping rules during one training run and counts the nodes every rule cut off.
+ * Safe to share between the tasks of a parallel build, but with max nodes the nodes that get the budget
+ * depend on the order they are checked in, so a tree with max nodes has to be built in one thread.
+ */
+class StoppingCheck {
+    private final StoppingRules rules;
+    private final AtomicIntegerArray cuts = new AtomicIntegerArray(StoppingRules.Rule.values().length);
+    // nodes in the tree so far, the root included
+    private final AtomicInteger nodes = new AtomicInteger(1);
+
+    StoppingCheck(StoppingRules rules) {
+        this.rules = rules;
+    }
+
+    // whether a node may be split as far as the rules checked before counting go, without recording a cut;
+    // the node count only grows, so a node without room for children now won't have it when it is reached
+    boolean allowsSplit(int depth, int rows) {
+        return depth < rules.getMaxDepth() && rows >= rules.getMinRowsToSplit() && nodes.get() + 2 <= rules.getMaxNodes();
+    }
+
+    // whether the tree has a max number of nodes
+    boolean limitsNodes() {
+        return rules.getMaxNodes() < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Checks max depth, min rows and max nodes for a node that could be split, before its tuples are counted.
+     * @param depth depth of the node, the root is at depth 0
+     * @param rows number of tuples of the node
+     * @return true if the node has to be a leaf, the cut is recorded
+     */
+    boolean stopBeforeCounting(int depth, int rows) {
+        if(depth >= rules.getMaxDepth()) {
+            return cut(StoppingRules.Rule.MAX_DEPTH);
+        }
+        if(rows < rules.getMinRowsToSplit()) {
+            return cut(StoppingRules.Rule.MIN_ROWS);
+        }
+        // a split adds at least two children
+        if(nodes.get() + 2 > rules.getMaxNodes()) {
+            return cut(StoppingRules.Rule.MAX_NODES);
+        }
+        return false;
+    }
+
+    /**
+     * Checks min gain and max nodes for a node about to be split, the children are added to the node count.
+     * @param counts counts of the node
+     * @param attrId the selected attribute
+     * @return true if the node has to be a leaf, the cut is recorded
+     */
+    boolean stopAfterSelection(ContingencyTable counts, int attrId) {
+        if(rules.getMinGain() > 0.0 && counts.informationGain(attrId) < rules.getMinGain()) {
+            return cut(StoppingRules.Rule.MIN_GAIN);
+        }
+        int children = Schema.valueCount(attrId);
+        if(nodes.addAndGet(children) > rules.getMaxNodes()) {
+            nodes.addAndGet(-children);
+            return cut(StoppingRules.Rule.MAX_NODES);
+        }
+        return false;
+    }
+
+    private boolean cut(StoppingRules.Rule rule) {
+        cuts.incrementAndGet(rule.ordinal());
+        return true;
+    }
+
+    // number of nodes every rule cut off
+    Map<StoppingRules.Rule, Integer> getCuts() {
+        Map<StoppingRules.Rule, Integer> result = new EnumMap<>(StoppingRules.Rule.class);
+        for(StoppingRules.Rule rule : StoppingRules.Rule.values()) {
+            result.put(rule, cuts.get(rule.ordinal()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package classification;
+
+/**
+ * Limits on how far a decision tree is grown. A node that breaks one of the rules becomes a leaf with the
+ * majority class label of its tuples. Max depth, min rows and max nodes are checked before a node's
+ * tuples are counted, min gain as soon as the attribute to split by has been selected.
+ * Without rules (NONE) a tree grows until its leaves are pure or the attributes run out.
+ */
+public class StoppingRules {
+    /**
+     * The rules, used to report how many nodes every rule cut off.
+     */
+    public enum Rule {
+        // the node is at the maximum depth
+        MAX_DEPTH,
+        // the node has fewer tuples than the minimum to split
+        MIN_ROWS,
+        // the information gain of the selected attribute is below the minimum
+        MIN_GAIN,
+        // the tree has no room left for the node's children
+        MAX_NODES
+    }
+
+    public static final StoppingRules NONE = new Builder().build();
+
+    private final int maxDepth;
+    private final int minRowsToSplit;
+    private final double minGain;
+    private final int maxNodes;
+
+    private StoppingRules(Builder builder) {
+        maxDepth = builder.maxDepth;
+        minRowsToSplit = builder.minRowsToSplit;
+        minGain = builder.minGain;
+        maxNodes = builder.maxNodes;
+    }
+
+    // depth of the deepest split node plus one, the root is at depth 0
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    // nodes with fewer tuples than this aren't split
+    public int getMinRowsToSplit() {
+        return minRowsToSplit;
+    }
+
+    // nodes aren't split by an attribute with a lower information gain than this
+    public double getMinGain() {
+        return minGain;
+    }
+
+    // the most nodes the tree may have, leaves included
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Collects the rules, every rule not set doesn't limit the tree.
+     */
+    public static class Builder {
+        private int maxDepth = Integer.MAX_VALUE;
+        private int minRowsToSplit = 0;
+        private double minGain = 0.0;
+        private int maxNodes = Integer.MAX_VALUE;
+
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder minRowsToSplit(int minRowsToSplit) {
+            this.minRowsToSplit = minRowsToSplit;
+            return this;
+        }
+
+        public Builder minGain(double minGain) {
+            this.minGain = minGain;
+            return this;
+        }
+
+        public Builder maxNodes(int maxNodes) {
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        public StoppingRules build() {
+            return new StoppingRules(this);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package classification;
+
+import data.MushroomTable;
+import data.Schema;
+import enums.Class_Label;
+
+/**
+ * The data a decision tree is induced from: a column based table plus one array of row indices shared by
+ * the whole tree. Every node owns a range [from, to) of that array, and splitting a node partitions its
+ * range in place, so no lists of mushrooms are copied while the tree grows.
+ */
+public class TrainingData {
+    private final MushroomTable table;
+    private final int[] rows;
+
+    public TrainingData(MushroomTable table) {
+        this.table = table;
+        rows = new int[table.size()];
+        for(int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+    }
+
+    public MushroomTable getTable() {
+        return table;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    // the table row at a position of the index array
+    public int row(int index) {
+        return rows[index];
+    }
+
+    // number of poisonous tuples in the range
+    public int countPoisonous(int from, int to) {
+        int poisonous = 0;
+        for(int i = from; i < to; i++) {
+            poisonous += table.labelOrdinal(rows[i]);
+        }
+        return poisonous;
+    }
+
+    // majority class label of the range, ties go to poisonous
+    public Class_Label getMajorityClassLabel(int from, int to) {
+        int poisonous = countPoisonous(from, to);
+        int edible = (to - from) - poisonous;
+
+        if(edible > poisonous) return Class_Label.edible;
+        else return Class_Label.poisonous;
+    }
+
+    // counts the class labels for every value of the attributes in the range
+    public ContingencyTable count(int from, int to, long attributes) {
+        return new ContingencyTable(table, rows, from, to, attributes);
+    }
+
+    /**
+     * Partitions the range in place so the rows are grouped by their value of the attribute, in the order
+     * of the value ordinals. The size of every group is taken from the counts of the range, so the rows
+     * are only moved once (like a multi-way quicksort partition).
+     * @param from start of the range
+     * @param to end of the range (exclusive)
+     * @param attrId attribute to partition by
+     * @param counts counts of the range, must include the attribute
+     * @return start of the group of every value ordinal, followed by the end of the range
+     */
+    public int[] partition(int from, int to, int attrId, ContingencyTable counts) {
+        int values = Schema.valueCount(attrId);
+        int[] starts = new int[values + 1];
+        starts[0] = from;
+        for(int ordinal = 0; ordinal < values; ordinal++) {
+            starts[ordinal + 1] = starts[ordinal] + counts.valueCount(attrId, ordinal);
+        }
+
+        // next free position of every group, rows are swapped into their group until each group is full
+        int[] next = new int[values];
+        System.arraycopy(starts, 0, next, 0, values);
+        byte[] column = table.column(attrId);
+        for(int ordinal = 0; ordinal < values; ordinal++) {
+            int end = starts[ordinal + 1];
+            while(next[ordinal] < end) {
+                int row = rows[next[ordinal]];
+                int value = column[row];
+                if(value == ordinal) {
+                    next[ordinal]++;
+                } else {
+                    rows[next[ordinal]] = rows[next[value]];
+                    rows[next[value]++] = row;
+                }
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Reorders the row index array by group, the rows of group g are put at starts[g], starts[g] + 1, ...
+     * in table order (a counting sort).
+     * @param groupOfRow group of every table row
+     * @param starts start of every group in the row index array
+     */
+    void arrange(int[] groupOfRow, int[] starts) {
+        int[] next = starts.clone();
+        for(int row = 0; row < groupOfRow.length; row++) {
+            rows[next[groupOfRow[row]]++] = row;
+        }
+    }
+
+    /**
+     * Writes the rows of a bit set to the row index array, in table order.
+     * @param offset position to put the first row at
+     * @param rowBits bit set of table rows
+     * @return position after the last row written
+     */
+    int place(int offset, long[] rowBits) {
+        for(int word = 0; word < rowBits.length; word++) {
+            for(long bits = rowBits[word]; bits != 0L; bits &= bits - 1) {
+                rows[offset++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return offset;
+    }
+}
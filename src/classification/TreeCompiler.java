@@ -0,0 +1,301 @@
+package classification;
+
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Turns a trained decision tree into a class of its own: the tree is written out as Java source, nested
+ * switch statements on the value ordinals of the split attributes, which is compiled in memory with the
+ * JDK's compiler (javax.tools) and loaded. There is no interpreter left, so the JIT compiles the tree like
+ * any hand written method. Large subtrees go to methods of their own, as the JIT doesn't compile huge methods.
+ *
+ * This is an option next to FlatDecisionTree, not a replacement: it needs a JDK, compiling takes a while, and
+ * on the trees measured it beats walking the Node tree (ID3.classify) but not the flat arrays.
+ */
+public class TreeCompiler {
+    // subtrees with more nodes than this get their own methods
+    public static final int INLINE_NODES = 64;
+    public static final String PACKAGE = "classification.generated";
+    // characters per string constant of the leaf labels, a constant may have at most 65535 bytes
+    private static final int LEAF_CHUNK = 60000;
+
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    /**
+     * Compiles a trained tree into a classifier class.
+     * @param root root node of the decision tree
+     * @return an instance of the generated class
+     * @throws IllegalStateException if there is no Java compiler (on a JRE) or the class can't be compiled or loaded
+     */
+    public static Classifier compile(Node root) {
+        String className = "GeneratedTree" + CLASS_COUNTER.incrementAndGet();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null) {
+            throw new IllegalStateException("No Java compiler available, a decision tree can only be compiled on a JDK");
+        }
+
+        Map<String, ByteArrayOutputStream> classFiles = new HashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, null);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind,
+                                                       FileObject sibling) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                classFiles.put(name, bytes);
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytes;
+                    }
+                };
+            }
+        };
+
+        String source = generateSource(root, className);
+        JavaFileObject sourceFile = new SimpleJavaFileObject(
+                URI.create("string:///" + PACKAGE.replace('.', '/') + "/" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-g:none");
+        boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null,
+                Collections.singletonList(sourceFile)).call();
+        if(!compiled) {
+            StringBuilder message = new StringBuilder("Could not compile the decision tree:");
+            for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append("\n").append(diagnostic.getMessage(null));
+            }
+            throw new IllegalStateException(message.toString());
+        }
+
+        try {
+            ClassLoader loader = new GeneratedClassLoader(TreeCompiler.class.getClassLoader(), classFiles);
+            return (Classifier) loader.loadClass(PACKAGE + "." + className).getDeclaredConstructor().newInstance();
+        } catch(ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Could not load the compiled decision tree", e);
+        }
+    }
+
+    /**
+     * Writes the source of a class implementing Classifier for a trained tree.
+     * @param root root node of the decision tree
+     * @param className simple name of the class, it's put in package PACKAGE
+     * @return the Java source
+     */
+    public static String generateSource(Node root, String className) {
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import classification.Classifier;\n")
+                .append("import data.Mushroom;\n")
+                .append("import data.MushroomTable;\n")
+                .append("import enums.Class_Label;\n\n")
+                .append("// generated by classification.TreeCompiler\n")
+                .append("public final class ").append(className).append(" implements Classifier {\n")
+                .append("    private static final Class_Label[] LABELS = Class_Label.values();\n\n")
+                .append("    @Override\n")
+                .append("    public Class_Label classify(Mushroom mushroom) {\n")
+                .append("        int label = m0(mushroom);\n")
+                .append("        return label < 0 ? null : LABELS[label];\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Class_Label classify(MushroomTable table, int row) {\n")
+                .append("        int label = t0(table, row);\n")
+                .append("        return label < 0 ? null : LABELS[label];\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public int classifyOrdinal(MushroomTable table, int row) {\n")
+                .append("        return t0(table, row);\n")
+                .append("    }\n");
+
+        Generator generator = new Generator(root);
+        for(int i = 0; i < generator.roots.size(); i++) {
+            out.append("\n    private static int m").append(i).append("(Mushroom mushroom) {\n");
+            generator.writeSubtree(out, generator.roots.get(i), "        ", true);
+            out.append("    }\n");
+            out.append("\n    private static int t").append(i).append("(MushroomTable table, int row) {\n");
+            generator.writeSubtree(out, generator.roots.get(i), "        ", false);
+            out.append("    }\n");
+        }
+        generator.writeLeaves(out);
+        return out.append("}\n").toString();
+    }
+
+    /**
+     * The state of writing one class. The labels of the leaf children of all switches go into one array,
+     * LEAVES, kept in the class as string constants and decoded once, so that its size isn't bound by the
+     * 64 KB of code a static initializer may have.
+     */
+    private static class Generator {
+        // the subtrees that get methods of their own by method id, the same ones for both kinds of input
+        private final List<Node> roots = new ArrayList<>();
+        private final Map<Node, Integer> methods = new IdentityHashMap<>();
+        // number of nodes of every subtree, counted once
+        private final Map<Node, Integer> sizes = new IdentityHashMap<>();
+        // position of the labels of a switch in LEAVES
+        private final Map<Node, Integer> leafBases = new IdentityHashMap<>();
+        // the labels of LEAVES, as label ordinal + 1 from '0'
+        private final StringBuilder leaves = new StringBuilder();
+
+        Generator(Node root) {
+            countNodes(root);
+            methods.put(root, 0);
+            roots.add(root);
+        }
+
+        private int countNodes(Node node) {
+            int count = 1;
+            for(int i = 0; i < node.childCount(); i++) {
+                count += countNodes(node.child(i));
+            }
+            sizes.put(node, count);
+            return count;
+        }
+
+        /**
+         * Writes the statements that return the label ordinal for a subtree. The children that are leaves share
+         * one lookup in LEAVES by value ordinal, only the children that split further get a case of the switch,
+         * so the last level of the tree has no branch to mispredict.
+         */
+        void writeSubtree(StringBuilder out, Node node, String indent, boolean mushroom) {
+            int attrId = node.isLeaf() ? -1 : node.getSplitAttributeId();
+            if(attrId < 0) {
+                out.append(indent).append("return ").append(ordinal(node.getM_Class())).append(";\n");
+                return;
+            }
+
+            boolean internalChildren = false;
+            for(int i = 0; i < node.childCount(); i++) {
+                internalChildren |= splits(node.child(i));
+            }
+            String leaf = "LEAVES[" + leafBase(node, attrId) + " + ";
+
+            String value = mushroom ? "mushroom.valueOrdinal(" + attrId + ")" : "table.column(" + attrId + ")[row]";
+            if(!internalChildren) {
+                out.append(indent).append("return ").append(leaf).append(value).append("];\n");
+                return;
+            }
+
+            String variable = "value" + indent.length() / 8;
+            out.append(indent).append("int ").append(variable).append(" = ").append(value).append(";\n");
+            out.append(indent).append("switch(").append(variable).append(") {\n");
+            for(int i = 0; i < node.childCount(); i++) {
+                Node child = node.child(i);
+                if(!splits(child)) continue;
+
+                out.append(indent).append("    case ").append(child.getValueOrdinal()).append(": {\n");
+                if(sizes.get(child) > INLINE_NODES) {
+                    out.append(indent).append("        return ")
+                            .append(mushroom ? "m" + method(child) + "(mushroom)" : "t" + method(child) + "(table, row)")
+                            .append(";\n");
+                } else {
+                    writeSubtree(out, child, indent + "        ", mushroom);
+                }
+                out.append(indent).append("    }\n");
+            }
+            out.append(indent).append("    default:\n")
+                    .append(indent).append("        return ").append(leaf).append(variable).append("];\n")
+                    .append(indent).append("}\n");
+        }
+
+        private static boolean splits(Node node) {
+            return !node.isLeaf() && node.getSplitAttributeId() >= 0;
+        }
+
+        private int method(Node subtree) {
+            Integer method = methods.get(subtree);
+            if(method == null) {
+                method = roots.size();
+                methods.put(subtree, method);
+                roots.add(subtree);
+            }
+            return method;
+        }
+
+        // position of the node's labels in LEAVES, added when first asked for
+        private int leafBase(Node node, int attrId) {
+            Integer base = leafBases.get(node);
+            if(base == null) {
+                base = leaves.length();
+                leafBases.put(node, base);
+                // a value without a child gets the node's own label, the entries of children that split further
+                // are never read
+                for(int ordinal = 0; ordinal < Schema.valueCount(attrId); ordinal++) {
+                    Node child = node.getChild(ordinal);
+                    leaves.append((char) ('1' + ordinal(child != null ? child.getM_Class() : node.getM_Class())));
+                }
+            }
+            return base;
+        }
+
+        // LEAVES, split into string constants that fit the constant pool
+        void writeLeaves(StringBuilder out) {
+            out.append("\n    private static final byte[] LEAVES = decode(new String[] {\n");
+            for(int from = 0; from < leaves.length(); from += LEAF_CHUNK) {
+                out.append("            \"").append(leaves, from, Math.min(from + LEAF_CHUNK, leaves.length())).append("\",\n");
+            }
+            out.append("    });\n\n")
+                    .append("    private static byte[] decode(String[] chunks) {\n")
+                    .append("        byte[] labels = new byte[").append(leaves.length()).append("];\n")
+                    .append("        int i = 0;\n")
+                    .append("        for(String chunk : chunks) {\n")
+                    .append("            for(int c = 0; c < chunk.length(); c++) {\n")
+                    .append("                labels[i++] = (byte) (chunk.charAt(c) - '1');\n")
+                    .append("            }\n")
+                    .append("        }\n")
+                    .append("        return labels;\n")
+                    .append("    }\n");
+        }
+    }
+
+    private static int ordinal(Class_Label label) {
+        return label == null ? -1 : label.ordinal();
+    }
+
+    /**
+     * Defines the compiled classes, its parent loader provides the classes of this project.
+     */
+    private static class GeneratedClassLoader extends ClassLoader {
+        private final Map<String, ByteArrayOutputStream> classFiles;
+
+        GeneratedClassLoader(ClassLoader parent, Map<String, ByteArrayOutputStream> classFiles) {
+            super(parent);
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ByteArrayOutputStream bytes = classFiles.get(name);
+            if(bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] classFile = bytes.toByteArray();
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package classification;
+
+import data.Mushroom;
+import data.MushroomTable;
+import data.Node;
+import data.Schema;
+import enums.Class_Label;
+
+/**
+ * Immutable, prediction only copy of a trained decision tree. Every node keeps just its split attribute id,
+ * its children in a table indexed by value ordinal, its class label and its number of training tuples;
+ * parents, attribute sets and the ranges of the training rows are dropped. A process that only predicts
+ * can load or build one and let the training data and the data.Node tree be garbage collected.
+ */
+public final class TreeModel implements Classifier {
+    private final Branch root;
+    private final int nodeCount;
+    // mask of the attributes the branches split on
+    private final long usedAttributes;
+
+    private TreeModel(Branch root, int nodeCount) {
+        this.root = root;
+        this.nodeCount = nodeCount;
+        usedAttributes = usedAttributes(root);
+    }
+
+    /**
+     * Copies a trained tree.
+     * @param root root node of the decision tree
+     * @return the model
+     */
+    public static TreeModel of(Node root) {
+        int[] count = new int[1];
+        return new TreeModel(copy(root, count), count[0]);
+    }
+
+    private static Branch copy(Node node, int[] count) {
+        count[0]++;
+        int attrId = node.isLeaf() ? -1 : node.getSplitAttributeId();
+        Branch[] children = null;
+        if(attrId >= 0) {
+            children = new Branch[Schema.valueCount(attrId)];
+            for(int ordinal = 0; ordinal < children.length; ordinal++) {
+                Node child = node.getChild(ordinal);
+                children[ordinal] = child == null ? null : copy(child, count);
+            }
+        }
+        return new Branch(attrId, children, node.getM_Class(), node.getLength());
+    }
+
+    @Override
+    public Class_Label classify(Mushroom mushroom) {
+        Branch branch = root;
+        while(branch.attrId >= 0) {
+            Branch child = branch.children[mushroom.valueOrdinal(branch.attrId)];
+            if(child == null) break;
+            branch = child;
+        }
+        return branch.label;
+    }
+
+    @Override
+    public Class_Label classify(MushroomTable table, int row) {
+        Branch branch = root;
+        while(branch.attrId >= 0) {
+            Branch child = branch.children[table.valueOrdinal(row, branch.attrId)];
+            if(child == null) break;
+            branch = child;
+        }
+        return branch.label;
+    }
+
+    @Override
+    public long usedAttributes() {
+        return usedAttributes;
+    }
+
+    private static long usedAttributes(Branch branch) {
+        if(branch.attrId < 0) return 0L;
+
+        long used = 1L << branch.attrId;
+        for(Branch child : branch.children) {
+            if(child != null) used |= usedAttributes(child);
+        }
+        return used;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    // number of training tuples that ended up in the root, i.e. the size of the training set
+    public int getRows() {
+        return root.rows;
+    }
+
+    /**
+     * A node of the model, a leaf when attrId is -1.
+     */
+    private static final class Branch {
+        private final int attrId;
+        // child for every value ordinal of the split attribute, null for a leaf
+        private final Branch[] children;
+        private final Class_Label label;
+        private final int rows;
+
+        Branch(int attrId, Branch[] children, Class_Label label, int rows) {
+            this.attrId = attrId;
+            this.children = children;
+            this.label = label;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package classification;
+
+import data.Node;
+
+/**
+ * Size and shape of a decision tree: node count, depth and how many hops a prediction takes on average.
+ */
+public class TreeStats {
+    private int nodes;
+    private int leaves;
+    private int depth;
+    // sum over the leaves of depth * training tuples, and of depth alone
+    private long weightedPathLength;
+    private long pathLength;
+    private long tuples;
+
+    private TreeStats() {
+    }
+
+    /**
+     * Measures the tree below a node.
+     * @param root root node of the tree
+     * @return the stats of the tree
+     */
+    public static TreeStats of(Node root) {
+        TreeStats stats = new TreeStats();
+        stats.visit(root, 0);
+        return stats;
+    }
+
+    private void visit(Node node, int nodeDepth) {
+        nodes++;
+        depth = Math.max(depth, nodeDepth);
+        if(node.childCount() == 0) {
+            leaves++;
+            pathLength += nodeDepth;
+            weightedPathLength += (long) nodeDepth * node.getLength();
+            tuples += node.getLength();
+            return;
+        }
+        for(int i = 0; i < node.childCount(); i++) {
+            visit(node.child(i), nodeDepth + 1);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodes;
+    }
+
+    public int getLeafCount() {
+        return leaves;
+    }
+
+    // number of edges on the longest path from the root to a leaf
+    public int getDepth() {
+        return depth;
+    }
+
+    // average number of hops from the root to the leaf of a training tuple, the leaves weighted by their tuples
+    public double getAveragePathLength() {
+        if(tuples == 0) {
+            return (double) pathLength / leaves;
+        }
+        return (double) weightedPathLength / tuples;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nodes: %d, leaves: %d, depth: %d, average path length: %.2f",
+                nodes, leaves, depth, getAveragePathLength());
+    }
+}
@@ -0,0 +1,75 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Decodes the single character codes of one attribute in the data file to the values of its enum type.
+ * The codes are given in the order of the enum constants, as listed in agaricus-lepiotaexplanation.txt,
+ * and are put into a 256 entry lookup table once, so decoding a code is a single array load.
+ */
+public class AttributeDecoder {
+
+	/**
+	 * Returned by {@link #decode(byte)} for codes that are not part of the attribute.
+	 */
+	public static final int UNKNOWN = -1;
+
+	private final Class<?> type;
+	private final Object[] values;
+	private final String codes;
+	private final byte[] table = new byte[256];
+
+	/**
+	 * @param type Enum type of the attribute
+	 * @param codes Code of every enum constant, in the order of the constants
+	 */
+	public AttributeDecoder(Class<? extends Enum<?>> type, String codes)
+	{
+		this.type = type;
+		this.values = type.getEnumConstants();
+		this.codes = codes;
+
+		if(codes.length() != values.length) {
+			throw new IllegalArgumentException(type.getSimpleName() + " has " + values.length
+					+ " values but " + codes.length() + " codes were given");
+		}
+
+		Arrays.fill(table, (byte) UNKNOWN);
+		for(int ordinal = 0; ordinal < codes.length(); ordinal++) {
+			table[codes.charAt(ordinal) & 0xFF] = (byte) ordinal;
+		}
+	}
+
+	/**
+	 * Looks up the ordinal of the enum constant a code stands for.
+	 * @param code Code as read from the data file
+	 * @return Ordinal of the value, or UNKNOWN if the code isn't used by this attribute
+	 */
+	public int decode(byte code)
+	{
+		return table[code & 0xFF];
+	}
+
+	/**
+	 * @param ordinal Ordinal returned by decode
+	 * @return The enum constant with that ordinal
+	 */
+	public Object value(int ordinal)
+	{
+		return values[ordinal];
+	}
+
+	/**
+	 * @param ordinal Ordinal of an enum constant
+	 * @return The code used for that value in the data file
+	 */
+	public char code(int ordinal)
+	{
+		return codes.charAt(ordinal);
+	}
+
+	public Class<?> getType()
+	{
+		return type;
+	}
+}
@@ -0,0 +1,114 @@
+package data;
+
+/**
+ * Bitmap index of a data.MushroomTable: for every value of every attribute a bit set over the rows,
+ * with bit i set if row i has that value, and one more bit set for the poisonous rows.
+ * A set of rows is a long[] of the same length, so the number of rows of a set with a value and a class label
+ * is the popcount of (rows & value & poisonous), 64 rows per instruction and no row accessed on its own.
+ */
+public class BitmapIndex {
+
+	private final long[][][] values;
+	private final long[] poisonous;
+	private final int size;
+
+	private BitmapIndex(long[][][] values, long[] poisonous, int size)
+	{
+		this.values = values;
+		this.poisonous = poisonous;
+		this.size = size;
+	}
+
+	/**
+	 * Builds the index of a table.
+	 * @param table Table to index
+	 * @return The bitmap index of the table
+	 */
+	public static BitmapIndex of(MushroomTable table)
+	{
+		int words = (table.size() + 63) >>> 6;
+		long[][][] values = new long[Schema.ATTRIBUTE_COUNT][][];
+		for(int attrId = 0; attrId < Schema.ATTRIBUTE_COUNT; attrId++) {
+			values[attrId] = new long[Schema.valueCount(attrId)][words];
+			byte[] column = table.column(attrId);
+			for(int row = 0; row < column.length; row++) {
+				values[attrId][column[row]][row >>> 6] |= 1L << row;
+			}
+		}
+		return new BitmapIndex(values, table.poisonousBits().clone(), table.size());
+	}
+
+	/**
+	 * @return Number of rows in the index
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return Number of longs in a bit set of rows
+	 */
+	public int words()
+	{
+		return poisonous.length;
+	}
+
+	/**
+	 * @return New bit set holding every row
+	 */
+	public long[] allRows()
+	{
+		long[] rows = new long[words()];
+		for(int row = 0; row < size; row += 64) {
+			rows[row >>> 6] = size - row >= 64 ? -1L : (1L << (size - row)) - 1;
+		}
+		return rows;
+	}
+
+	/**
+	 * Returns the rows with a value. The array is the index's own storage, so don't modify it.
+	 * @param attrId Id of the attribute, see data.Schema
+	 * @param ordinal Ordinal of the value
+	 * @return Bit set of the rows with the value
+	 */
+	public long[] valueBits(int attrId, int ordinal)
+	{
+		return values[attrId][ordinal];
+	}
+
+	/**
+	 * Returns the poisonous rows. The array is the index's own storage, so don't modify it.
+	 * @return Bit set of the poisonous rows
+	 */
+	public long[] poisonousBits()
+	{
+		return poisonous;
+	}
+
+	/**
+	 * @param rows Bit set of rows
+	 * @return Number of rows in the set
+	 */
+	public static int cardinality(long[] rows)
+	{
+		int count = 0;
+		for(long word : rows) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * @param rows Bit set of rows
+	 * @return Number of poisonous rows in the set
+	 */
+	public int countPoisonous(long[] rows)
+	{
+		int count = 0;
+		for(int i = 0; i < rows.length; i++) {
+			count += Long.bitCount(rows[i] & poisonous[i]);
+		}
+		return count;
+	}
+}
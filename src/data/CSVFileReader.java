@@ -2,14 +2,18 @@ package data;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.StringTokenizer;
 
 public class CSVFileReader {
+
+	private static final int BUFFER_SIZE = 1 << 16;
 	
 	/**
 	 * The read method reads in a csv file as a two dimensional string array.
@@ -48,4 +52,111 @@ public class CSVFileReader {
 		br.close();
 		return lines.toArray(ret);
 	}
+
+	/**
+	 * Byte level version of the read method. The file is read in large blocks into a byte buffer and
+	 * tokenized in place, every field is handed to the handler as a slice of that buffer.
+	 * No strings are created, so this is the method to use for large data files.
+	 * Empty lines are skipped and a trailing '\r' is stripped from every line.
+	 * @param csvFile File to load
+	 * @param separationChar Character used to separate entries, must be a single byte character
+	 * @param headerRow Does data file contain a header row?
+	 * @param handler Receives the fields of every row
+	 * @return Number of rows handed to the handler
+	 * @throws IOException
+	 */
+	public static int readDataFile(String csvFile, char separationChar, boolean headerRow, FieldHandler handler) throws IOException
+	{
+		byte separator = (byte) separationChar;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int limit = 0;
+		int scanFrom = 0;
+		int row = 0;
+		boolean skipLine = headerRow;
+
+		try (InputStream in = new FileInputStream(csvFile)) {
+			int read;
+			while ((read = in.read(buffer, limit, buffer.length - limit)) != -1) {
+				limit += read;
+				int lineStart = 0;
+
+				for(int i = scanFrom; i < limit; i++) {
+					if(buffer[i] == '\n') {
+						if(skipLine) {
+							skipLine = false;
+						} else if(parseLine(buffer, lineStart, i, separator, row, handler)) {
+							row++;
+						}
+						lineStart = i + 1;
+					}
+				}
+
+				// move the unfinished line to the front of the buffer, growing it if the line fills it all
+				limit -= lineStart;
+				System.arraycopy(buffer, lineStart, buffer, 0, limit);
+				if(limit == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				scanFrom = limit;
+			}
+
+			// the last line does not have to end with a line break
+			if(limit > 0 && !skipLine && parseLine(buffer, 0, limit, separator, row, handler)) {
+				row++;
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Tokenizes data that is already in memory, like the body of a request, the same way the byte level
+	 * read method tokenizes a file. There is no header row.
+	 * @param data Buffer holding the lines
+	 * @param length Number of bytes of the buffer to read
+	 * @param separationChar Character used to separate entries, must be a single byte character
+	 * @param handler Receives the fields of every row
+	 * @return Number of rows handed to the handler
+	 */
+	public static int readData(byte[] data, int length, char separationChar, FieldHandler handler)
+	{
+		byte separator = (byte) separationChar;
+		int row = 0;
+		int lineStart = 0;
+
+		for(int i = 0; i < length; i++) {
+			if(data[i] == '\n') {
+				if(parseLine(data, lineStart, i, separator, row, handler)) {
+					row++;
+				}
+				lineStart = i + 1;
+			}
+		}
+		if(lineStart < length && parseLine(data, lineStart, length, separator, row, handler)) {
+			row++;
+		}
+		return row;
+	}
+
+	// splits the line buffer[from, to) into fields, returns false if the line was empty
+	private static boolean parseLine(byte[] buffer, int from, int to, byte separator, int row, FieldHandler handler)
+	{
+		if(to > from && buffer[to - 1] == '\r') {
+			to--;
+		}
+		if(to == from) {
+			return false;
+		}
+
+		int column = 0;
+		int fieldStart = from;
+		for(int i = from; i < to; i++) {
+			if(buffer[i] == separator) {
+				handler.field(row, column++, buffer, fieldStart, i - fieldStart);
+				fieldStart = i + 1;
+			}
+		}
+		handler.field(row, column++, buffer, fieldStart, to - fieldStart);
+		handler.endOfRow(row, column);
+		return true;
+	}
 }
@@ -12,45 +12,55 @@ import enums.*;
  *
  */
 public class DataManager {
-	
+
+	/**
+	 * Decoders for the columns of the data file, the class label first and then the attributes
+	 * in the order of agaricus-lepiotaexplanation.txt. That is also the order of Mushroom.getAttributeList(),
+	 * so column i + 1 holds the attribute with id i in data.Schema.
+	 */
+	private static final AttributeDecoder[] DECODERS = {
+		new AttributeDecoder(Class_Label.class, "ep"),
+		new AttributeDecoder(Cap_Shape.class, "bcxfks"),
+		new AttributeDecoder(Cap_Surface.class, "fgys"),
+		new AttributeDecoder(Cap_Color.class, "nbcgrpuewy"),
+		new AttributeDecoder(Bruises.class, "tf"),
+		new AttributeDecoder(Odor.class, "alcyfmnps"),
+		new AttributeDecoder(Gill_Attachment.class, "adfn"),
+		new AttributeDecoder(Gill_Spacing.class, "cwd"),
+		new AttributeDecoder(Gill_Size.class, "bn"),
+		new AttributeDecoder(Gill_Color.class, "knbhgropuewy"),
+		new AttributeDecoder(Stalk_Shape.class, "et"),
+		new AttributeDecoder(Stalk_Root.class, "bcuezr?"),
+		new AttributeDecoder(Stalk_Surface_Above_Ring.class, "fyks"),
+		new AttributeDecoder(Stalk_Surface_Below_Ring.class, "fyks"),
+		new AttributeDecoder(Stalk_Color_Above_Ring.class, "nbcgopewy"),
+		new AttributeDecoder(Stalk_Color_Below_Ring.class, "nbcgopewy"),
+		new AttributeDecoder(Veil_Type.class, "pu"),
+		new AttributeDecoder(Veil_Color.class, "nowy"),
+		new AttributeDecoder(Ring_Number.class, "not"),
+		new AttributeDecoder(Ring_Type.class, "ceflnpsz"),
+		new AttributeDecoder(Spore_Print_Color.class, "knbhrouwy"),
+		new AttributeDecoder(Population.class, "acnsvy"),
+		new AttributeDecoder(Habitat.class, "glmpuwd"),
+	};
+
 	public static ArrayList<Mushroom> LoadData()
+	{
+		return LoadData("Resources/agaricus-lepiotadata.txt");
+	}
+
+	public static ArrayList<Mushroom> LoadData(String file)
 	{
 		ArrayList<Mushroom> datalist = new ArrayList<Mushroom>();
 		
-		//First step load in data from the text file.
+		//Load in data from the text file, each field is decoded straight from the read buffer.
 		try {
-			String[][] data = CSVFileReader.readDataFile("Resources/agaricus-lepiotadata.txt", ",","", false);
-						
-			for(int i = 0; i < data.length; i++)
-			{
-				Mushroom mushroomToAdd = new Mushroom();
-				
-				mushroomToAdd.m_Class = loadMushroomClass(data[i][0]);
-				mushroomToAdd.m_cap_shape = loadCapShape(data[i][1]);
-				mushroomToAdd.m_cap_surface = loadCapSurface(data[i][2]);
-				mushroomToAdd.m_cap_color = loadCapColor(data[i][3]);
-				mushroomToAdd.m_bruises = loadBruises(data[i][4]);
-				mushroomToAdd.m_odor = loadOdor(data[i][5]);
-				mushroomToAdd.m_gill_attach = loadGillAttachment(data[i][6]);
-				mushroomToAdd.m_gill_spacing = loadGillSpacing(data[i][7]);
-				mushroomToAdd.m_gill_size = loadGillSize(data[i][8]);
-				mushroomToAdd.m_gill_color = loadGillColor(data[i][9]);
-				mushroomToAdd.m_stalk_shape = loadStalkShape(data[i][10]);
-				mushroomToAdd.m_stalk_root = loadStalkRoot(data[i][11]);
-				mushroomToAdd.m_stalk_surface_above = loadStalkSurfaceAbove(data[i][12]);
-				mushroomToAdd.m_stalk_surface_below = loadStalkSurfaceBelow(data[i][13]);
-				mushroomToAdd.m_stalk_color_above = loadStalkColorAbove(data[i][14]);
-				mushroomToAdd.m_stalk_color_below = loadStalkColorBelow(data[i][15]);
-				mushroomToAdd.m_veil_type = loadVeilType(data[i][16]);
-				mushroomToAdd.m_veil_color = loadVeilColor(data[i][17]);
-				mushroomToAdd.m_ring_number = loadRingNumber(data[i][18]);
-				mushroomToAdd.m_ring_type = loadRingType(data[i][19]);
-				mushroomToAdd.m_spore_color = loadSporePrintColor(data[i][20]);
-				mushroomToAdd.m_population = loadPopulation(data[i][21]);
-				mushroomToAdd.m_habitat = loadHabitat(data[i][22]);
-				
-				datalist.add(mushroomToAdd);
-			}			
+			CSVFileReader.readDataFile(file, ',', false, new RowDecoder() {
+				@Override
+				void decodedRow(byte[] row) {
+					datalist.add(createMushroom(row));
+				}
+			});
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -59,646 +69,166 @@ public class DataManager {
 		return datalist;
 		
 	}
-	
-	private static Class_Label loadMushroomClass(String m_class)
-	{
-		if(m_class.equals("e"))
-		{
-			return Class_Label.edible;
-		}
 
-		else if(m_class.equals("p"))
-		{
-			return Class_Label.poisonous;
-		}
-		
-		return null;
-	}
-	
-	private static Cap_Shape loadCapShape(String cap_shape)
+	/**
+	 * Loads the data file into a column based data.MushroomTable, without creating a data.Mushroom per row.
+	 * @param file Data file to load
+	 * @return Table with all valid rows of the file
+	 * @throws IOException if the file can't be read
+	 */
+	public static MushroomTable LoadTable(String file) throws IOException
 	{
-		if(cap_shape.equals("b"))
-		{
-			return Cap_Shape.bell;
-		}else if(cap_shape.equals("c"))
-		{
-			return Cap_Shape.conical;
-		}else if(cap_shape.equals("x"))
-		{
-			return Cap_Shape.convex;
-		}else if(cap_shape.equals("f"))
-		{
-			return Cap_Shape.flat;
-		}else if(cap_shape.equals("k"))
-		{
-			return Cap_Shape.knobbed;
-		}
-		else if(cap_shape.equals("s"))
-		{
-			return Cap_Shape.sunken;
-		}
-		
-		return null; //INtentional, if we get down here something went wrong.
-	}
+		MushroomTable.Builder builder = new MushroomTable.Builder(1024);
 
-	private static Cap_Surface loadCapSurface(String cap_surface)
-	{
-		if(cap_surface.equals("f"))
-		{
-			return Cap_Surface.fibrous;
-		} else if(cap_surface.equals("g"))
-		{
-			return Cap_Surface.grooves;
-		}else if(cap_surface.equals("y"))
-		{
-			return Cap_Surface.scaly;
-		}else if(cap_surface.equals("s"))
-		{
-			return Cap_Surface.smooth;
-		}
-		return null;
-	}
-	
-	private static Cap_Color loadCapColor(String cap_color)
-	{
-		if(cap_color.equals("n"))
-		{
-			return Cap_Color.brown;
-		}
-		else if(cap_color.equals("b"))
-		{
-			return Cap_Color.buff;
-		}
-		else if(cap_color.equals("c"))
-		{
-			return Cap_Color.cinnamon;
-		}
-		else if(cap_color.equals("g"))
-		{
-			return Cap_Color.gray;
-		}
-		else if(cap_color.equals("r"))
-		{
-			return Cap_Color.green;
-		}
-		else if(cap_color.equals("p"))
-		{
-			return Cap_Color.pink;
-		}
-		else if(cap_color.equals("u"))
-		{
-			return Cap_Color.purple;
-		}
-		else if(cap_color.equals("e"))
-		{
-			return Cap_Color.red;
-		}
-		else if(cap_color.equals("w"))
-		{
-			return Cap_Color.white;
-		}
-		else if(cap_color.equals("y"))
-		{
-			return Cap_Color.yellow;
-		}
-		return null;
-	}
-	
-	private static Bruises loadBruises(String bruises)
-	{
-		if(bruises.equals("t"))
-		{
-			return Bruises.bruises;
-		}
-		else if(bruises.equals("f"))
-		{
-			return Bruises.no_bruises;
-		}
-		return null;
-		
-	}
-	
-	private static Odor loadOdor(String odor)
-	{
-		if(odor.equals("a"))
-		{
-			return Odor.almond;
-		}
-		else if(odor.equals("l"))
-		{
-			return Odor.anise;
-		}
-		else if(odor.equals("c"))
-		{
-			return Odor.creosote;
-		}
-		else if(odor.equals("y"))
-		{
-			return Odor.fishy;
-		}
-		else if(odor.equals("f"))
-		{
-			return Odor.foul;
-		}
-		else if(odor.equals("m"))
-		{
-			return Odor.musty;
-		}
-		else if(odor.equals("n"))
-		{
-			return Odor.none;
-		}
-		else if(odor.equals("p"))
-		{
-			return Odor.pungent;
-		}
-		else if(odor.equals("s"))
-		{
-			return Odor.spicy;
-		}
-		
-		return null;
-	}
-	
-	private static Gill_Attachment loadGillAttachment(String gill_att)
-	{
-		if(gill_att.equals("a"))
-		{
-			return Gill_Attachment.attached;
-		}
-		else if(gill_att.equals("d"))
-		{
-			return Gill_Attachment.descending;
-		}
-		else if(gill_att.equals("f"))
-		{
-			return Gill_Attachment.free;
-		}
-		else if(gill_att.equals("n"))
-		{
-			return Gill_Attachment.notched;
-		}
-		
-		return null;
-	}
-	
-	private static Gill_Spacing loadGillSpacing(String gill_space)
-	{
-		if(gill_space.equals("c"))
-		{
-			return Gill_Spacing.close;
-		}
-		else if(gill_space.equals("w"))
-		{
-			return Gill_Spacing.crowded;
-		}
-		else if(gill_space.equals("d"))
-		{
-			return Gill_Spacing.distant;
-		}
-		return null;
-	}
-	
-	private static Gill_Size loadGillSize(String gill_size)
-	{
-		if(gill_size.equals("b"))
-		{
-			return Gill_Size.broad;
-		}
-		else if(gill_size.equals("n"))
-		{
-			return Gill_Size.narrow;
-		}
-		
-		return null;
-	}
+		CSVFileReader.readDataFile(file, ',', false, new RowDecoder() {
+			@Override
+			void decodedRow(byte[] row) {
+				builder.addRow(row);
+			}
+		});
 
-	private static Gill_Color loadGillColor(String gill_color)
-	{
-		if(gill_color.equals("k"))
-		{
-			return Gill_Color.black;
-		} 
-		else if(gill_color.equals("n"))
-		{
-			return Gill_Color.brown;
-		}
-		else if(gill_color.equals("b"))
-		{
-			return Gill_Color.buff;
-		} 
-		else if(gill_color.equals("h"))
-		{
-			return Gill_Color.chocolate;
-		}
-		else if(gill_color.equals("g"))
-		{
-			return Gill_Color.gray;
-		}
-		else if(gill_color.equals("r"))
-		{
-			return Gill_Color.green;
-		}
-		else if(gill_color.equals("o"))
-		{
-			return Gill_Color.orange;
-		}
-		else if(gill_color.equals("p"))
-		{
-			return Gill_Color.pink;
-		}
-		else if(gill_color.equals("u"))
-		{
-			return Gill_Color.purple;
-		}
-		else if(gill_color.equals("e"))
-		{
-			return Gill_Color.red;
-		}
-		else if(gill_color.equals("w"))
-		{
-			return Gill_Color.white;
-		}
-		else if(gill_color.equals("y"))
-		{
-			return Gill_Color.yellow;
-		}
-		
-		return null;
-	}
-	
-	private static Stalk_Shape loadStalkShape(String stalk_shape)
-	{
-		if(stalk_shape.equals("e"))
-		{
-			return Stalk_Shape.enlarging;
-		}
-		else if(stalk_shape.equals("t"))
-		{
-			return Stalk_Shape.tapering;
-		}
-		
-		return null;
-	}
-	
-	private static Stalk_Root loadStalkRoot(String stalk_root)
-	{
-		if(stalk_root.equals("b"))
-		{
-			return Stalk_Root.bulbous;
-		}
-		else if(stalk_root.equals("c"))
-		{
-			return Stalk_Root.club;
-		}
-		else if(stalk_root.equals("u"))
-		{
-			return Stalk_Root.cup;
-		}
-		else if(stalk_root.equals("e"))
-		{
-			return Stalk_Root.equal;
-		}
-		else if(stalk_root.equals("z"))
-		{
-			return Stalk_Root.rhizomorphs;
-		}
-		else if(stalk_root.equals("r"))
-		{
-			return Stalk_Root.rooted;
-		}
-		else if(stalk_root.equals("?"))
-		{
-			return Stalk_Root.missing;
-		}
-		
-		return null;
-	}
-	
-	private static Stalk_Surface_Above_Ring loadStalkSurfaceAbove(String stalk_above)
-	{
-		if(stalk_above.equals("f"))
-		{
-			return Stalk_Surface_Above_Ring.ibrous;
-		}
-		else if(stalk_above.equals("y"))
-		{
-			return Stalk_Surface_Above_Ring.scaly;
-		}
-		else if(stalk_above.equals("k"))
-		{
-			return Stalk_Surface_Above_Ring.silky;
-		}
-		else if(stalk_above.equals("s"))
-		{
-			return Stalk_Surface_Above_Ring.smooth;
-		}
-		
-		return null;
+		return builder.build();
 	}
 
-	private static Stalk_Surface_Below_Ring loadStalkSurfaceBelow(String stalk_below)
-	{
-		if(stalk_below.equals("f"))
-		{
-			return Stalk_Surface_Below_Ring.ibrous;
-		}
-		else if(stalk_below.equals("y"))
-		{
-			return Stalk_Surface_Below_Ring.scaly;
-		}
-		else if(stalk_below.equals("k"))
-		{
-			return Stalk_Surface_Below_Ring.silky;
-		}
-		else if(stalk_below.equals("s"))
-		{
-			return Stalk_Surface_Below_Ring.smooth;
-		}
-		
-		return null;
-	}
-	
-	private static Stalk_Color_Above_Ring loadStalkColorAbove(String stalk_color_above)
-	{
-		if(stalk_color_above.equals("n"))
-		{ 
-			return Stalk_Color_Above_Ring.brown;
-		}
-		else if(stalk_color_above.equals("b"))
-		{
-			return Stalk_Color_Above_Ring.buff;
-		}
-		else if(stalk_color_above.equals("c"))
-		{
-			return Stalk_Color_Above_Ring.cinnamon;
-		} 
-		else if(stalk_color_above.equals("g"))
-		{
-			return Stalk_Color_Above_Ring.gray;
-		}
-		else if(stalk_color_above.equals("o"))
-		{
-			return Stalk_Color_Above_Ring.orange;
-		}
-		else if(stalk_color_above.equals("p"))
-		{
-			return Stalk_Color_Above_Ring.pink;
-		}
-		else if(stalk_color_above.equals("e"))
-		{
-			return Stalk_Color_Above_Ring.red;
-		}
-		else if(stalk_color_above.equals("w"))
-		{
-			return Stalk_Color_Above_Ring.white;
-		}
-		else if(stalk_color_above.equals("y"))
-		{
-			return Stalk_Color_Above_Ring.yellow;
-		}
-		
-		return null;
-	}
-	
-	private static Stalk_Color_Below_Ring loadStalkColorBelow(String stalk_color_below)
+	public static MushroomTable LoadTable() throws IOException
 	{
-		if(stalk_color_below.equals("n"))
-		{ 
-			return Stalk_Color_Below_Ring.brown;
-		}
-		else if(stalk_color_below.equals("b"))
-		{
-			return Stalk_Color_Below_Ring.buff;
-		}
-		else if(stalk_color_below.equals("c"))
-		{
-			return Stalk_Color_Below_Ring.cinnamon;
-		} 
-		else if(stalk_color_below.equals("g"))
-		{
-			return Stalk_Color_Below_Ring.gray;
-		}
-		else if(stalk_color_below.equals("o"))
-		{
-			return Stalk_Color_Below_Ring.orange;
-		}
-		else if(stalk_color_below.equals("p"))
-		{
-			return Stalk_Color_Below_Ring.pink;
-		}
-		else if(stalk_color_below.equals("e"))
-		{
-			return Stalk_Color_Below_Ring.red;
-		}
-		else if(stalk_color_below.equals("w"))
-		{
-			return Stalk_Color_Below_Ring.white;
-		}
-		else if(stalk_color_below.equals("y"))
-		{
-			return Stalk_Color_Below_Ring.yellow;
-		}
-		
-		return null;
+		return LoadTable("Resources/agaricus-lepiotadata.txt");
 	}
 
-	private static Veil_Type loadVeilType(String veil_type)
-	{
-		if(veil_type.equals("p"))
-		{
-			return Veil_Type.partial;
-		}
-		else if(veil_type.equals("u"))
-		{
-			return Veil_Type.universal;
-		}
-		
-		return null;
-	}
-	
-	private static Veil_Color loadVeilColor(String veil_color)
+	/**
+	 * Decodes rows in the code format of the data file from memory, e.g. "x,s,n,t,p,f,c,n,k,e,e,s,s,w,w,p,w,o,p,k,s,u"
+	 * per line. A row holds either just the attribute codes, or the class label code followed by them as in the
+	 * data file. Rows without a label are stored as edible, the label is there to be predicted.
+	 * @param data Buffer holding the lines
+	 * @param length Number of bytes of the buffer to read
+	 * @return Table with a row for every line that isn't empty
+	 * @throws IllegalArgumentException if a row has an unknown code or the wrong number of fields
+	 */
+	public static MushroomTable ParseTable(byte[] data, int length)
 	{
-		if(veil_color.equals("n"))
-		{
-			return Veil_Color.brown;
-		}
-		else if(veil_color.equals("o"))
-		{
-			return Veil_Color.orange;
-		}
-		else if(veil_color.equals("w"))
-		{
-			return Veil_Color.white;
-		}
-		else if(veil_color.equals("y"))
-		{
-			return Veil_Color.yellow;
-		}
-		
-		return null;
-	}
+		MushroomTable.Builder builder = new MushroomTable.Builder(16);
+		byte[] codes = new byte[DECODERS.length];
+		byte[] ordinals = new byte[DECODERS.length];
+		// the text of the fields that are too long to be a code, for the error message
+		String[] longFields = new String[DECODERS.length];
 
-	private static Ring_Number loadRingNumber(String ring_number)
-	{
-		if(ring_number.equals("n"))
-		{
-			return Ring_Number.none;
-		}
-		else if(ring_number.equals("o"))
-		{
-			return Ring_Number.one;
-		}
-		else if(ring_number.equals("t"))
-		{
-			return Ring_Number.two;
-		}
-		
-		return null;
-	}
-	
-	private static Ring_Type loadRingType(String ring_type)
-	{
-		if(ring_type.equals("c"))
-		{
-			return Ring_Type.cobwebby;
-		}
-		else if(ring_type.equals("e"))
-		{
-			return Ring_Type.evanescent;
-		}
-		else if(ring_type.equals("f"))
-		{
-			return Ring_Type.flaring;
-		}
-		else if(ring_type.equals("l"))
-		{
-			return Ring_Type.large;
-		}
-		else if(ring_type.equals("n"))
-		{
-			return Ring_Type.none;
-		}
-		else if(ring_type.equals("s"))
-		{
-			return Ring_Type.sheathing;
-		}
-		else if(ring_type.equals("z"))
-		{
-			return Ring_Type.zone;
-		}
-		else if(ring_type.equals("p"))
-		{
-			return Ring_Type.pendant;
-		}
-		
-		return null;
+		CSVFileReader.readData(data, length, ',', new FieldHandler() {
+			@Override
+			public void field(int row, int column, byte[] buffer, int offset, int length)
+			{
+				if(column < codes.length) {
+					// a missing or longer field can't be a code, 0 is no code of any attribute
+					codes[column] = length == 1 ? buffer[offset] : 0;
+					longFields[column] = length == 1 ? null : new String(buffer, offset, length);
+				}
+			}
+
+			@Override
+			public void endOfRow(int row, int columns)
+			{
+				// without a label the attributes start at the first field
+				int skip;
+				if(columns == DECODERS.length) {
+					skip = 0;
+				} else if(columns == DECODERS.length - 1) {
+					skip = 1;
+					ordinals[0] = (byte) Class_Label.edible.ordinal();
+				} else {
+					throw new IllegalArgumentException("Row " + (row + 1) + ": expected " + (DECODERS.length - 1)
+							+ " or " + DECODERS.length + " fields but found " + columns);
+				}
+
+				for(int column = skip; column < DECODERS.length; column++) {
+					int ordinal = DECODERS[column].decode(codes[column - skip]);
+					if(ordinal == AttributeDecoder.UNKNOWN) {
+						String field = longFields[column - skip] != null ? longFields[column - skip]
+								: String.valueOf((char) (codes[column - skip] & 0xFF));
+						throw new IllegalArgumentException("Row " + (row + 1) + ": unknown code '"
+								+ field + "' for " + DECODERS[column].getType().getSimpleName());
+					}
+					ordinals[column] = (byte) ordinal;
+				}
+				builder.addRow(ordinals);
+			}
+		});
+
+		return builder.build();
 	}
-	
-	private static Spore_Print_Color loadSporePrintColor(String spore_color)
+
+	/**
+	 * @param ordinal Ordinal of a class label
+	 * @return The code of the class label in the data file
+	 */
+	public static char ClassCode(int ordinal)
 	{
-		if(spore_color.equals("k"))
-		{
-			return Spore_Print_Color.black;
-		}
-		else if(spore_color.equals("n"))
-		{
-			return Spore_Print_Color.brown;
-		}
-		else if(spore_color.equals("b"))
-		{
-			return Spore_Print_Color.buff;
-		}
-		else if(spore_color.equals("h"))
-		{
-			return Spore_Print_Color.chocolate;
-		}
-		else if(spore_color.equals("r"))
-		{
-			return Spore_Print_Color.green;
-		}
-		else if(spore_color.equals("o"))
-		{
-			return Spore_Print_Color.orange;
-		}
-		else if(spore_color.equals("u"))
-		{
-			return Spore_Print_Color.purple;
-		}
-		else if(spore_color.equals("w"))
-		{
-			return Spore_Print_Color.white;
-		}
-		else if(spore_color.equals("y"))
-		{
-			return Spore_Print_Color.yellow;
-		}
-		
-		return null;
+		return DECODERS[0].code(ordinal);
 	}
 
-	private static Population loadPopulation(String population)
+	/**
+	 * Creates a mushroom from the ordinals of a decoded row.
+	 * @param ordinals Ordinal of every column, in the order of the data file
+	 * @return The new mushroom
+	 */
+	static Mushroom createMushroom(byte[] ordinals)
 	{
-		if(population.equals("a"))
-		{
-			return Population.abundant;
-		}
-		else if(population.equals("c"))
-		{
-			return Population.clustered;
-		}
-		else if(population.equals("n"))
-		{
-			return Population.numerous;
-		}
-		else if(population.equals("s"))
-		{
-			return Population.scattered;
-		}
-		else if(population.equals("v"))
-		{
-			return Population.several;
-		}
-		else if(population.equals("y"))
-		{
-			return Population.solitary;
+		Mushroom mushroom = new Mushroom();
+
+		mushroom.m_Class = (Class_Label) DECODERS[0].value(ordinals[0]);
+		for(int id = 0; id < Schema.ATTRIBUTE_COUNT; id++) {
+			mushroom.setValueOrdinal(id, ordinals[id + 1]);
 		}
-		
-		return null;
+
+		return mushroom;
 	}
 
-	private static Habitat loadHabitat(String habitat)
+	/**
+	 * Decodes the fields of each row with the lookup tables in DECODERS and hands over complete rows
+	 * as arrays of ordinals. Rows with unknown codes or the wrong number of fields are reported and skipped.
+	 */
+	private static abstract class RowDecoder implements FieldHandler
 	{
-		if(habitat.equals("g"))
-		{
-			return Habitat.grasses;
-		}
-		else if(habitat.equals("l"))
-		{
-			return Habitat.leaves;
-		}
-		else if(habitat.equals("m"))
-		{
-			return Habitat.meadows;
-		}
-		else if(habitat.equals("p"))
-		{
-			return Habitat.paths;
-		}
-		else if(habitat.equals("u"))
-		{
-			return Habitat.urban;
-		}
-		else if(habitat.equals("w"))
+		private final byte[] row = new byte[DECODERS.length];
+		private boolean valid = true;
+
+		/**
+		 * @param row Ordinal of every column of the row, reused for the next row
+		 */
+		abstract void decodedRow(byte[] row);
+
+		@Override
+		public void field(int row, int column, byte[] buffer, int offset, int length)
 		{
-			return Habitat.waste;
+			if(column >= DECODERS.length) {
+				return; // reported in endOfRow
+			}
+
+			int ordinal = length == 1 ? DECODERS[column].decode(buffer[offset]) : AttributeDecoder.UNKNOWN;
+			if(ordinal == AttributeDecoder.UNKNOWN) {
+				if(valid) {
+					System.err.println("Skipping row " + (row + 1) + ": unknown code '" + new String(buffer, offset, length)
+							+ "' for " + DECODERS[column].getType().getSimpleName());
+				}
+				valid = false;
+			}
+			this.row[column] = (byte) ordinal;
 		}
-		else if(habitat.equals("d"))
+
+		@Override
+		public void endOfRow(int row, int columns)
 		{
-			return Habitat.woods;
+			if(columns != DECODERS.length) {
+				if(valid) {
+					System.err.println("Skipping row " + (row + 1) + ": expected " + DECODERS.length
+							+ " fields but found " + columns);
+				}
+				valid = false;
+			}
+
+			if(valid) {
+				decodedRow(this.row);
+			}
+			valid = true;
 		}
-		
-		return null;
 	}
 
 	/**
@@ -713,10 +243,24 @@ public class DataManager {
 	 */
 	public static int CountClassInstancesBasedOnAttributeValue(List<Mushroom> Data, Object Attribute, Object AttributeValue, Object Classification)
 	{	
+		return CountClassInstancesBasedOnAttributeValue(Data, Schema.attributeId(Attribute),
+				((Enum<?>) AttributeValue).ordinal(), Classification);
+	}
+
+	/**
+	 * Same count as above, with the attribute given by its id in data.Schema and the value by its ordinal.
+	 * @param Data
+	 * @param AttributeId Id of the attribute we are calculating information gain for
+	 * @param ValueOrdinal Ordinal of the attribute value
+	 * @param Classification
+	 * @return
+	 */
+	public static int CountClassInstancesBasedOnAttributeValue(List<Mushroom> Data, int AttributeId, int ValueOrdinal, Object Classification)
+	{
 		int count = 0;
 		for(Mushroom mushroom : Data)
 		{
-			if(mushroom.getAttributeValue(Attribute).equals(AttributeValue))
+			if(mushroom.valueOrdinal(AttributeId) == ValueOrdinal)
 			{
 				if(mushroom.m_Class.equals(Classification))
 				{
@@ -726,5 +270,30 @@ public class DataManager {
 		}
 		return count;
 	}
+
+	/**
+	 * Column based version of the count above, for data in a data.MushroomTable.
+	 * @param Data
+	 * @param Attribute Attribute we are calculating information gain for
+	 * @param AttributeValue What value of the attribute
+	 * @param Classification
+	 * @return
+	 */
+	public static int CountClassInstancesBasedOnAttributeValue(MushroomTable Data, Object Attribute, Object AttributeValue, Object Classification)
+	{
+		byte[] column = Data.column(Attribute);
+		int value = ((Enum<?>) AttributeValue).ordinal();
+		boolean poisonous = Classification.equals(Class_Label.poisonous);
+
+		int count = 0;
+		for(int row = 0; row < Data.size(); row++)
+		{
+			if(column[row] == value && Data.isPoisonous(row) == poisonous)
+			{
+				count++;
+			}
+		}
+		return count;
+	}
 	
 }
@@ -0,0 +1,27 @@
+package data;
+
+/**
+ * Callback used by {@link CSVFileReader#readDataFile(String, char, boolean, FieldHandler)}.
+ * Each field is handed over as a slice of the reader's internal byte buffer, so no String is
+ * created per field. The buffer is reused, so the bytes must be consumed before the method returns.
+ */
+public interface FieldHandler {
+
+	/**
+	 * Called once for every field in the file.
+	 * @param row Index of the row the field belongs to (header row not counted)
+	 * @param column Index of the field within its row
+	 * @param buffer Buffer holding the field
+	 * @param offset Position of the first byte of the field in the buffer
+	 * @param length Number of bytes in the field, 0 for a missing value
+	 */
+	void field(int row, int column, byte[] buffer, int offset, int length);
+
+	/**
+	 * Called after the last field of a row has been handed over.
+	 * @param row Index of the row that was completed
+	 * @param columns Number of fields the row contained
+	 */
+	default void endOfRow(int row, int columns) {
+	}
+}
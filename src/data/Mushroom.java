@@ -53,52 +53,34 @@ Mushroom {
 	 */
 	public Class_Label m_Class;
 	
-	public Cap_Shape m_cap_shape;
-	
-	public Cap_Surface m_cap_surface;
-	
-	public Cap_Color m_cap_color;
-	
-	public Bruises m_bruises;
-	
-	public Odor m_odor;
-	
-	public Gill_Attachment m_gill_attach;
-	
-	public Gill_Spacing m_gill_spacing;
-	
-	public Gill_Size m_gill_size;
-	
-	public Gill_Color m_gill_color;
-	
-	public Stalk_Shape m_stalk_shape;
-	
-	public Stalk_Root m_stalk_root;
-	
-	public Stalk_Surface_Above_Ring m_stalk_surface_above;
-	
-	public Stalk_Surface_Below_Ring m_stalk_surface_below;
-	
-	public Stalk_Color_Above_Ring m_stalk_color_above;
-	
-	public Stalk_Color_Below_Ring m_stalk_color_below;
-	
-	public Veil_Type m_veil_type;
-	
-	public Veil_Color m_veil_color;
-	
-	public Ring_Number m_ring_number;
-	
-	public Ring_Type m_ring_type;
+	/**
+	 * Ordinal of the value of every attribute, indexed by the id given to it in data.Schema.
+	 */
+	private final byte[] values = new byte[Schema.ATTRIBUTE_COUNT];
 	
-	public Spore_Print_Color m_spore_color;
-		
-	public Population m_population;
+	/**
+	 * Returns the ordinal of the value of an attribute.
+	 * @param attrId Id of the attribute, see data.Schema
+	 * @return Ordinal of the enum constant of the value
+	 */
+	public int valueOrdinal(int attrId)
+	{
+		return values[attrId];
+	}
 	
-	public Habitat m_habitat;
+	/**
+	 * Sets the value of an attribute by its ordinal.
+	 * @param attrId Id of the attribute, see data.Schema
+	 * @param ordinal Ordinal of the enum constant of the value
+	 */
+	public void setValueOrdinal(int attrId, int ordinal)
+	{
+		values[attrId] = (byte) ordinal;
+	}
 	
 	/***
 	 * Returns the value of an Attribute based on its .class type object.
+	 * Prefer valueOrdinal in loops, this method needs a lookup to find the id of the attribute.
 	 * @param Attribute .class type object of its type
 	 * @return
 	 */
@@ -109,95 +91,23 @@ Mushroom {
 			return this.m_Class;
 		}
 		
-		if(Attribute.equals(Cap_Shape.class))
-		{
-			return this.m_cap_shape;
-		}
-		if(Attribute.equals(Cap_Surface.class))
-		{
-			return this.m_cap_surface;
-		}
-		if(Attribute.equals(Cap_Color.class))
-		{
-			return this.m_cap_color;
-		}
-		if(Attribute.equals(Bruises.class))
-		{
-			return this.m_bruises;
-		}
-		if(Attribute.equals(Odor.class))
-		{
-			return this.m_odor;
-		}
-		if(Attribute.equals(Gill_Attachment.class))
-		{
-			return this.m_gill_attach;
-		}
-		if(Attribute.equals(Gill_Spacing.class))
-		{
-			return this.m_gill_spacing;
-		}
-		if(Attribute.equals(Gill_Size.class))
-		{
-			return this.m_gill_size;
-		}
-		if(Attribute.equals(Gill_Color.class))
-		{
-			return this.m_gill_color;
-		}
-		if(Attribute.equals(Stalk_Shape.class))
-		{
-			return this.m_stalk_shape;
-		}
-		if(Attribute.equals(Stalk_Root.class))
-		{
-			return this.m_stalk_root;
-		}
-		if(Attribute.equals(Stalk_Surface_Above_Ring.class))
-		{
-			return this.m_stalk_surface_above;
-		}
-		if(Attribute.equals(Stalk_Surface_Below_Ring.class))
-		{
-			return this.m_stalk_surface_below;
-		}
-		if(Attribute.equals(Stalk_Color_Above_Ring.class))
-		{
-			return this.m_stalk_color_above;
-		}
-		if(Attribute.equals(Stalk_Color_Below_Ring.class))
-		{
-			return this.m_stalk_color_below;
-		}
-		if(Attribute.equals(Veil_Type.class))
-		{
-			return this.m_veil_type;
-		}
-		if(Attribute.equals(Veil_Color.class))
-		{
-			return this.m_veil_color;
-		}
-		if(Attribute.equals(Ring_Number.class))
-		{
-			return this.m_ring_number;
-		}
-		if(Attribute.equals(Ring_Type.class))
-		{
-			return this.m_ring_type;
-		}
-		if(Attribute.equals(Spore_Print_Color.class))
-		{
-			return this.m_spore_color;
-		}
-		if(Attribute.equals(Population.class))
-		{
-			return this.m_population;
-		}
-		if(Attribute.equals(Habitat.class))
+		int id = Schema.attributeId(Attribute);
+		return Schema.value(id, values[id]);
+	}
+	
+	/**
+	 * Sets the value of an Attribute based on its .class type object.
+	 * @param Attribute .class type object of its type
+	 * @param Value Enum constant of the value
+	 */
+	public void setAttributeValue(Object Attribute, Object Value)
+	{
+		if(Attribute.equals(Class_Label.class))
 		{
-			return this.m_habitat;
+			this.m_Class = (Class_Label) Value;
+			return;
 		}
 		
-		return null; //If we get down here something is wrong;
+		values[Schema.attributeId(Attribute)] = (byte) ((Enum<?>) Value).ordinal();
 	}
 }
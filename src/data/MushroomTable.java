@@ -0,0 +1,215 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import enums.Class_Label;
+
+/**
+ * Column based alternative to a list of data.Mushroom objects.
+ * Every attribute is stored as a byte array holding the ordinals of its enum values, and the class
+ * labels are packed as bits (set for poisonous), so a row takes up a little over 22 bytes.
+ * The columns are indexed by the attribute ids of data.Schema.
+ */
+public class MushroomTable {
+
+	private final byte[][] columns;
+	private final long[] poisonous;
+	private final int size;
+
+	MushroomTable(byte[][] columns, long[] poisonous, int size)
+	{
+		this.columns = columns;
+		this.poisonous = poisonous;
+		this.size = size;
+	}
+
+	/**
+	 * Builds a table holding the same data as a list of mushrooms.
+	 * @param mushrooms Mushrooms to copy into the table
+	 * @return The new table
+	 */
+	public static MushroomTable of(List<Mushroom> mushrooms)
+	{
+		Builder builder = new Builder(mushrooms.size());
+		byte[] row = new byte[Schema.ATTRIBUTE_COUNT + 1];
+
+		for(Mushroom mushroom : mushrooms) {
+			row[0] = (byte) mushroom.m_Class.ordinal();
+			for(int id = 0; id < Schema.ATTRIBUTE_COUNT; id++) {
+				row[id + 1] = (byte) mushroom.valueOrdinal(id);
+			}
+			builder.addRow(row);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Builds a table holding the rows of several tables, one table after the other.
+	 * @param tables Tables to copy
+	 * @return The new table
+	 */
+	public static MushroomTable concat(List<MushroomTable> tables)
+	{
+		int size = 0;
+		for(MushroomTable table : tables) {
+			size += table.size;
+		}
+
+		byte[][] columns = new byte[Schema.ATTRIBUTE_COUNT][size];
+		long[] poisonous = new long[(size + 63) >>> 6];
+		int offset = 0;
+		for(MushroomTable table : tables) {
+			for(int i = 0; i < columns.length; i++) {
+				System.arraycopy(table.columns[i], 0, columns[i], offset, table.size);
+			}
+			for(int row = 0; row < table.size; row++) {
+				if(table.isPoisonous(row)) {
+					poisonous[(offset + row) >>> 6] |= 1L << (offset + row);
+				}
+			}
+			offset += table.size;
+		}
+		return new MushroomTable(columns, poisonous, size);
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the column of an attribute. The array is the table's own storage, so don't modify it.
+	 * @param attribute .class type object of the attribute
+	 * @return Ordinal of the attribute value for every row
+	 */
+	public byte[] column(Object attribute)
+	{
+		return columns[Schema.attributeId(attribute)];
+	}
+
+	/**
+	 * Returns the column of an attribute. The array is the table's own storage, so don't modify it.
+	 * @param attrId Id of the attribute, see data.Schema
+	 * @return Ordinal of the attribute value for every row
+	 */
+	public byte[] column(int attrId)
+	{
+		return columns[attrId];
+	}
+
+	/**
+	 * @param row Index of the row
+	 * @param attrId Id of the attribute, see data.Schema
+	 * @return Ordinal of the value of the attribute in that row
+	 */
+	public int valueOrdinal(int row, int attrId)
+	{
+		return columns[attrId][row];
+	}
+
+	/**
+	 * @param row Index of the row
+	 * @return Whether the mushroom in that row is poisonous
+	 */
+	public boolean isPoisonous(int row)
+	{
+		return (poisonous[row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * @param row Index of the row
+	 * @return Ordinal of the class label of the row
+	 */
+	public int labelOrdinal(int row)
+	{
+		return (int) (poisonous[row >>> 6] >>> row) & 1;
+	}
+
+	// the class labels, bit i is set if row i is poisonous, don't modify the array
+	long[] poisonousBits()
+	{
+		return poisonous;
+	}
+
+	public Class_Label getLabel(int row)
+	{
+		return isPoisonous(row) ? Class_Label.poisonous : Class_Label.edible;
+	}
+
+	/**
+	 * Creates a data.Mushroom object for a single row.
+	 * @param row Index of the row
+	 * @return New mushroom with the values of the row
+	 */
+	public Mushroom getMushroom(int row)
+	{
+		byte[] ordinals = new byte[columns.length + 1];
+		ordinals[0] = (byte) getLabel(row).ordinal();
+		for(int i = 0; i < columns.length; i++) {
+			ordinals[i + 1] = columns[i][row];
+		}
+		return DataManager.createMushroom(ordinals);
+	}
+
+	/**
+	 * Creates data.Mushroom objects for every row, for code that still works on lists of mushrooms.
+	 * @return New list with a mushroom per row
+	 */
+	public List<Mushroom> toMushroomList()
+	{
+		List<Mushroom> mushrooms = new ArrayList<>(size);
+		for(int row = 0; row < size; row++) {
+			mushrooms.add(getMushroom(row));
+		}
+		return mushrooms;
+	}
+
+	/**
+	 * Collects rows of ordinals and packs them into a table.
+	 */
+	static class Builder
+	{
+		private byte[][] columns;
+		private long[] poisonous;
+		private int size;
+
+		Builder(int capacity)
+		{
+			capacity = Math.max(capacity, 64);
+			columns = new byte[Schema.ATTRIBUTE_COUNT][capacity];
+			poisonous = new long[(capacity + 63) >>> 6];
+		}
+
+		/**
+		 * @param row Ordinals in the order of the data file, the class label first
+		 */
+		void addRow(byte[] row)
+		{
+			if(size == columns[0].length) {
+				int capacity = size * 2;
+				for(int i = 0; i < columns.length; i++) {
+					columns[i] = Arrays.copyOf(columns[i], capacity);
+				}
+				poisonous = Arrays.copyOf(poisonous, (capacity + 63) >>> 6);
+			}
+
+			if(row[0] == Class_Label.poisonous.ordinal()) {
+				poisonous[size >>> 6] |= 1L << size;
+			}
+			for(int i = 0; i < columns.length; i++) {
+				columns[i][size] = row[i + 1];
+			}
+			size++;
+		}
+
+		MushroomTable build()
+		{
+			for(int i = 0; i < columns.length; i++) {
+				columns[i] = Arrays.copyOf(columns[i], size);
+			}
+			return new MushroomTable(columns, Arrays.copyOf(poisonous, (size + 63) >>> 6), size);
+		}
+	}
+}
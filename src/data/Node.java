@@ -2,31 +2,62 @@ package data;
 
 import enums.Class_Label;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 public class Node {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
     private Node parent = null;
-    private List<Node> children;
-    // the partitioned data set
-    private List<Mushroom> data;
-    // list of attributes minus the attribute we split on to get here
-    private List<Object> attributes;
+    // child for every value ordinal of the splitting criterion, null where there is none
+    private Node[] children = NO_CHILDREN;
+    // the children without the gaps, in the order of their value ordinals
+    private Node[] ordered = NO_CHILDREN;
+    private int childCount;
+    // the partitioned data set, as a range of the row index array shared by the whole tree
+    private int offset;
+    private int length;
+    // attributes minus the attribute we split on to get here, bit i is set for the attribute with id i in data.Schema
+    private long attributes;
     // class label gets set when node is a isLeaf node
     private Class_Label m_Class = null;
     // the attribute we split on to get to this node
     private Object splitting_criterion;
+    // id of the splitting criterion in data.Schema, -1 when there is none
+    private int splitAttributeId = -1;
     // the attribute value that got us to this node
     private Object value;
 
     private boolean isLeaf;
 
-    public Node(List<Mushroom> data, List<Object> attributes) {
+    public Node(int offset, int length, long attributes) {
         this.attributes = attributes;
-        this.data = data;
-        children = new ArrayList<>();
+        this.offset = offset;
+        this.length = length;
         isLeaf = false;
     }
 
+    // start of the node's range of the row index array used in training
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    // number of training tuples that ended up in this node
+    public int getLength() {
+        return length;
+    }
+
+    // attributes the node may still split on, as a mask
+    public long getAttributes() {
+        return attributes;
+    }
+
     public void setParent(Node parent) {
         this.parent = parent;
     }
@@ -42,21 +73,71 @@ public class Node {
         }
     }
 
-    // label node with splitting criterion
+    // label node with splitting criterion, this makes room for a child for every value of it
     public void setSplittingCriterion(Object splittingCriterion) {
         splitting_criterion = splittingCriterion;
+        splitAttributeId = Schema.attributeId(splittingCriterion);
+        children = new Node[Schema.valueCount(splitAttributeId)];
+        ordered = new Node[children.length];
+        childCount = 0;
+    }
+
+    public int getSplitAttributeId() {
+        return splitAttributeId;
     }
 
     public Object getSplitting_criterion() {
         return splitting_criterion;
     }
 
+    // adds a child for its value, the splitting criterion and the child's value have to be set
     public void addChild(Node child) {
-        children.add(child);
+        int ordinal = child.getValueOrdinal();
+        if(ordinal >= children.length) {
+            throw new IllegalStateException("No room for a child with value " + child.getValue() + ", split on " + splitting_criterion);
+        }
+        if(children[ordinal] != null) {
+            // replaces the child for the value
+            for(int i = 0; i < childCount; i++) {
+                if(ordered[i] == children[ordinal]) ordered[i] = child;
+            }
+        } else {
+            int i = childCount++;
+            for(; i > 0 && ordered[i - 1].getValueOrdinal() > ordinal; i--) {
+                ordered[i] = ordered[i - 1];
+            }
+            ordered[i] = child;
+        }
+        children[ordinal] = child;
+    }
+
+    /**
+     * @param valueOrdinal ordinal of a value of the splitting criterion
+     * @return the child for that value, null if there is none
+     */
+    public Node getChild(int valueOrdinal) {
+        return valueOrdinal < children.length ? children[valueOrdinal] : null;
+    }
+
+    // number of children, 0 for a leaf
+    public int childCount() {
+        return childCount;
+    }
+
+    /**
+     * Walks the children without a list, for(int i = 0; i < node.childCount(); i++) node.child(i).
+     * @param index position of the child in the order of the value ordinals, less than childCount()
+     * @return the child at that position
+     */
+    public Node child(int index) {
+        return ordered[Objects.checkIndex(index, childCount)];
     }
 
+    // the children in the order of their value ordinals, as a new list
     public List<Node> getChildren() {
-        return children;
+        if(childCount == 0) return Collections.emptyList();
+
+        return new ArrayList<>(Arrays.asList(ordered).subList(0, childCount));
     }
 
     public Class_Label getM_Class() {
@@ -71,6 +152,11 @@ public class Node {
         this.value = value;
     }
 
+    // ordinal of the attribute value that got us to this node
+    public int getValueOrdinal() {
+        return ((Enum<?>) value).ordinal();
+    }
+
     /**
      * Marks the current node as a leaf node
      */
@@ -78,12 +164,26 @@ public class Node {
 
     public boolean isLeaf() { return isLeaf; }
 
+    /**
+     * Collapses the subtree below this node into a leaf with the given class label.
+     * @param label class label of the new leaf
+     */
+    public void prune(Class_Label label) {
+        children = NO_CHILDREN;
+        ordered = NO_CHILDREN;
+        childCount = 0;
+        splitting_criterion = null;
+        splitAttributeId = -1;
+        setLabel(label);
+        setLeaf();
+    }
+
     @Override
     public String toString() {
         return "Attribute: " + parent.getSplitting_criterion().toString() +
                 "\nValue: " + value +
-                "\nNumber of mushrooms: " + data.size() +
-                "\nNumber of children: " + children.size() +
+                "\nNumber of mushrooms: " + length +
+                "\nNumber of children: " + childCount +
                 "\nNext splitting criterion: " + splitting_criterion +
                 "\nCLASS LABEL: " + m_Class;
     }
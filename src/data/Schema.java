@@ -0,0 +1,136 @@
+package data;
+
+import enums.Class_Label;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every attribute of Mushroom.getAttributeList() a stable integer id, its position in that list.
+ * Attribute values are identified by the ordinal of their enum constant, so with an id and an ordinal
+ * an attribute value can be looked up with array loads instead of comparing .class objects.
+ * The class label is not an attribute and has no id.
+ */
+public class Schema {
+
+	private static final Object[] ATTRIBUTES;
+	private static final Object[][] VALUES;
+	private static final Map<Object, Integer> IDS = new HashMap<>();
+
+	/**
+	 * Number of attributes, ids run from 0 to ATTRIBUTE_COUNT - 1.
+	 */
+	public static final int ATTRIBUTE_COUNT;
+
+	/**
+	 * Number of class labels.
+	 */
+	public static final int CLASS_COUNT = 2;
+
+	static {
+		List<Object> attributes = Mushroom.getAttributeList();
+		ATTRIBUTE_COUNT = attributes.size();
+		if(ATTRIBUTE_COUNT > Long.SIZE) {
+			throw new IllegalStateException("Attribute sets are kept as a long, at most 64 attributes are supported");
+		}
+		ATTRIBUTES = attributes.toArray();
+		VALUES = new Object[ATTRIBUTE_COUNT][];
+
+		for(int id = 0; id < ATTRIBUTE_COUNT; id++) {
+			VALUES[id] = ((Class<?>) ATTRIBUTES[id]).getEnumConstants();
+			IDS.put(ATTRIBUTES[id], id);
+		}
+	}
+
+	/**
+	 * @param attribute .class type object of the attribute
+	 * @return The id of the attribute
+	 */
+	public static int attributeId(Object attribute)
+	{
+		Integer id = IDS.get(attribute);
+		if(id == null) {
+			throw new IllegalArgumentException("Not an attribute: " + attribute);
+		}
+		return id;
+	}
+
+	/**
+	 * @param id Id of an attribute
+	 * @return The .class type object of the attribute
+	 */
+	public static Object attribute(int id)
+	{
+		return ATTRIBUTES[id];
+	}
+
+	/**
+	 * @param id Id of an attribute
+	 * @return Number of values the attribute can take
+	 */
+	public static int valueCount(int id)
+	{
+		return VALUES[id].length;
+	}
+
+	/**
+	 * @param id Id of an attribute
+	 * @param ordinal Ordinal of one of its values
+	 * @return The enum constant of that value
+	 */
+	public static Object value(int id, int ordinal)
+	{
+		return VALUES[id][ordinal];
+	}
+
+	/**
+	 * A 64 bit hash (FNV-1a) of the attributes and class labels, their order and the names and order of their values.
+	 * Anything stored as attribute ids and value ordinals, like a saved model, is only valid for the same fingerprint.
+	 * @return The fingerprint of the schema
+	 */
+	public static long fingerprint()
+	{
+		long hash = 0xcbf29ce484222325L;
+		for(int id = 0; id <= ATTRIBUTE_COUNT; id++) {
+			Object[] values = id < ATTRIBUTE_COUNT ? VALUES[id] : Class_Label.values();
+			String name = id < ATTRIBUTE_COUNT ? ((Class<?>) ATTRIBUTES[id]).getName() : Class_Label.class.getName();
+			hash = fnv(hash, name);
+			for(Object value : values) {
+				hash = fnv(hash, ((Enum<?>) value).name());
+			}
+		}
+		return hash;
+	}
+
+	private static long fnv(long hash, String text)
+	{
+		for(int i = 0; i < text.length(); i++) {
+			hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+		}
+		// separator, so that names can't run into each other
+		return (hash ^ 0xff) * 0x100000001b3L;
+	}
+
+	/**
+	 * @return The mask with every attribute in it, see attributeMask
+	 */
+	public static long allAttributes()
+	{
+		return ATTRIBUTE_COUNT == Long.SIZE ? -1L : (1L << ATTRIBUTE_COUNT) - 1;
+	}
+
+	/**
+	 * Turns a list of attributes into a bit mask, with bit i set for the attribute with id i.
+	 * @param attributes .class type objects of the attributes
+	 * @return The attribute set as a mask
+	 */
+	public static long attributeMask(List<Object> attributes)
+	{
+		long mask = 0L;
+		for(Object attribute : attributes) {
+			mask |= 1L << attributeId(attribute);
+		}
+		return mask;
+	}
+}
@@ -0,0 +1,75 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets of about 6% width, from a microsecond up, so percentiles can be read off
+ * at any time without keeping every sample. Recording is a single atomic increment and may happen on
+ * any number of threads at once.
+ */
+public class LatencyHistogram {
+    // 16 buckets per power of two, latencies below 16 microseconds get a bucket of their own
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BITS = 4;
+    // enough for latencies of over a day
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BITS - 20) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * @param nanos latency of one request
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(nanos / 1000, 0)));
+    }
+
+    // number of latencies recorded
+    public long count() {
+        long count = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * The latency a fraction of the requests stayed within, e.g. 0.99 for the 99th percentile.
+     * @param fraction between 0 and 1
+     * @return upper bound of the bucket the percentile falls in, in microseconds, 0 if nothing was recorded
+     */
+    public long percentileMicros(double fraction) {
+        long total = count();
+        if(total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if(seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private static int bucket(long micros) {
+        if(micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        // the highest set bit picks the power of two, the 4 bits below it the bucket within it
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int bucket = SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + (int) ((micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    // largest latency in microseconds that goes into the bucket
+    private static long upperBound(int bucket) {
+        if(bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long mantissa = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
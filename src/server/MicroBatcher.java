@@ -0,0 +1,154 @@
+package server;
+
+import classification.BatchClassifier;
+import classification.Classifier;
+import classification.ModelRegistry;
+import data.MushroomTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Groups the rows of concurrent requests into batches for BatchClassifier. Requests are queued and one worker
+ * thread takes everything that is waiting, up to a maximum number of rows, as the next batch. Nothing waits
+ * for a batch to fill up: a lone request is classified at once, and the requests that arrive while a batch is
+ * being classified make up the next one, so batches grow with the load.
+ * Every batch leases the live model of a ModelRegistry, so all its rows are classified by the same version.
+ */
+public class MicroBatcher implements AutoCloseable {
+    // batches stop growing at this many rows, unless a single request is larger
+    public static final int DEFAULT_MAX_ROWS = 4096;
+
+    private final ModelRegistry<? extends Classifier> models;
+    private final int maxRows;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    public MicroBatcher(ModelRegistry<? extends Classifier> models) {
+        this(models, DEFAULT_MAX_ROWS);
+    }
+
+    /**
+     * @param models holds the trained model
+     * @param maxRows largest number of rows to put into one batch
+     */
+    public MicroBatcher(ModelRegistry<? extends Classifier> models, int maxRows) {
+        this.models = models;
+        this.maxRows = maxRows;
+        worker = new Thread(this::run, "micro-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Classifies the rows as part of the next batch, blocking until it is done.
+     * @param table rows to classify
+     * @return ordinal of the predicted class label of every row
+     * @throws IllegalStateException if the batcher is closed
+     */
+    public byte[] classify(MushroomTable table) {
+        if(table.size() == 0) {
+            return new byte[0];
+        }
+        Request request = new Request(table);
+        if(closed) {
+            throw new IllegalStateException("Batcher is closed");
+        }
+        queue.add(request);
+        // close() may have drained the queue before the request was added
+        if(closed && queue.remove(request)) {
+            throw new IllegalStateException("Batcher is closed");
+        }
+        return request.labels.join();
+    }
+
+    // number of batches classified so far
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    // number of rows classified so far
+    public long getRowCount() {
+        return rows.get();
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+        List<MushroomTable> tables = new ArrayList<>();
+        while(!closed) {
+            try {
+                batch.add(queue.take());
+            } catch(InterruptedException e) {
+                break;
+            }
+
+            // add whatever else is waiting, as long as it fits
+            int size = batch.get(0).table.size();
+            Request next;
+            while((next = queue.peek()) != null && size + next.table.size() <= maxRows) {
+                batch.add(queue.poll());
+                size += next.table.size();
+            }
+
+            try(ModelRegistry.Lease<? extends Classifier> lease = models.acquire()) {
+                for(Request request : batch) {
+                    tables.add(request.table);
+                }
+                MushroomTable table = tables.size() == 1 ? tables.get(0) : MushroomTable.concat(tables);
+                byte[] labels = BatchClassifier.classify(lease.getModel(), table);
+
+                int offset = 0;
+                for(Request request : batch) {
+                    request.labels.complete(Arrays.copyOfRange(labels, offset, offset + request.table.size()));
+                    offset += request.table.size();
+                }
+                batches.incrementAndGet();
+                rows.addAndGet(size);
+            } catch(RuntimeException e) {
+                for(Request request : batch) {
+                    request.labels.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+            tables.clear();
+        }
+    }
+
+    /**
+     * Stops the worker thread, requests that are still queued fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Request request;
+        while((request = queue.poll()) != null) {
+            request.labels.completeExceptionally(new IllegalStateException("Batcher is closed"));
+        }
+    }
+
+    /**
+     * The rows of one request and the labels they get.
+     */
+    private static class Request {
+        private final MushroomTable table;
+        private final CompletableFuture<byte[]> labels = new CompletableFuture<>();
+
+        Request(MushroomTable table) {
+            this.table = table;
+        }
+    }
+}
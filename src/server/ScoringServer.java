@@ -0,0 +1,226 @@
+package server;
+
+import classification.C45;
+import classification.Classifier;
+import classification.FlatDecisionTree;
+import classification.ModelRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import data.DataManager;
+import data.Mushroom;
+import data.MushroomTable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scores mushrooms over HTTP on the loopback interface, with the JDK's built-in server.
+ *
+ * POST /classify takes one or more rows in the code format of the data file, one per line, with or without
+ * the class label in front (see DataManager.ParseTable), and answers with the code of the predicted class label
+ * of every row, one per line. The rows of concurrent requests are classified together by a MicroBatcher.
+ * A malformed row fails the whole request with 400.
+ *
+ * GET /stats reports the live model version, the number of requests, rows and batches and the p50 / p99
+ * latency of /classify.
+ *
+ * The model is taken from a ModelRegistry, so a retrained model can be published while the server is running.
+ *
+ * Every exchange is handled on a virtual thread when the JVM has them (Java 21), else on a cached thread pool.
+ *
+ * Run the JVM with -Dsun.net.httpserver.nodelay=true (main sets it if it isn't given). The built-in server
+ * writes the headers and the body of a response separately, and with Nagle's algorithm on, the body then
+ * waits for the client's delayed ack, about 40 ms per request. The property is read once for the whole JVM,
+ * so the server doesn't set it itself.
+ */
+public class ScoringServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    // larger request bodies are refused with 413, about 170000 rows
+    public static final int MAX_BODY_BYTES = 8 << 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ModelRegistry<? extends Classifier> models;
+    private final MicroBatcher batcher;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ScoringServer(Classifier classifier, int port) throws IOException {
+        this(new ModelRegistry<>(classifier), port);
+    }
+
+    /**
+     * Binds the server, it doesn't accept requests before start is called.
+     * @param models holds the trained model
+     * @param port port on the loopback interface, 0 for any free port
+     */
+    public ScoringServer(ModelRegistry<? extends Classifier> models, int port) throws IOException {
+        this.models = models;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = connectionExecutor();
+        batcher = new MicroBatcher(models);
+        server.setExecutor(executor);
+        server.createContext("/classify", this::classify);
+        server.createContext("/stats", this::stats);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // the port the server is bound to
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Stops accepting requests, waits a second at most for the exchanges in progress and stops the batcher.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        batcher.close();
+        executor.shutdown();
+    }
+
+    // one thread per exchange, virtual if the JVM has them
+    private static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch(ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void classify(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try(exchange) {
+            if(!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Use POST\n");
+                return;
+            }
+
+            byte[] body = readBody(exchange);
+            if(body == null) {
+                rejected.incrementAndGet();
+                respond(exchange, 413, "Request body larger than " + MAX_BODY_BYTES + " bytes\n");
+                return;
+            }
+            byte[] labels;
+            try {
+                labels = batcher.classify(DataManager.ParseTable(body, body.length));
+            } catch(IllegalArgumentException e) {
+                rejected.incrementAndGet();
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            } catch(IllegalStateException | CompletionException e) {
+                rejected.incrementAndGet();
+                respond(exchange, 503, "Not available\n");
+                return;
+            }
+
+            // a code and a line break per row
+            byte[] response = new byte[labels.length * 2];
+            for(int i = 0; i < labels.length; i++) {
+                response[2 * i] = (byte) (labels[i] < 0 ? '?' : DataManager.ClassCode(labels[i]));
+                response[2 * i + 1] = '\n';
+            }
+            respond(exchange, 200, response);
+        }
+        requests.incrementAndGet();
+        latency.record(System.nanoTime() - start);
+    }
+
+    // the request body, null if it is larger than MAX_BODY_BYTES
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            if(contentLength != null && Long.parseLong(contentLength.trim()) > MAX_BODY_BYTES) {
+                return null;
+            }
+        } catch(NumberFormatException e) {
+            // the server fails an exchange with a malformed length itself
+        }
+        // a chunked body has no length, it is read up to one byte past the limit
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try(exchange) {
+            respond(exchange, 200, getStats());
+        }
+    }
+
+    /**
+     * @return the numbers reported by GET /stats
+     */
+    public String getStats() {
+        long batches = batcher.getBatchCount();
+        long rows = batcher.getRowCount();
+        return "model version " + models.current().getNumber() + "\n"
+                + "requests " + requests.get() + "\n"
+                + "rejected " + rejected.get() + "\n"
+                + "rows " + rows + "\n"
+                + "batches " + batches + "\n"
+                + String.format("rows per batch %.1f%n", batches == 0 ? 0.0 : (double) rows / batches)
+                + String.format("p50 %.3f ms%n", latency.percentileMicros(0.50) / 1000.0)
+                + String.format("p99 %.3f ms%n", latency.percentileMicros(0.99) / 1000.0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        respond(exchange, status, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        // a length of 0 would mean a chunked body, -1 is no body and the server closes the body stream itself
+        if(body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Trains a C45 tree on the data file and serves it until the process is stopped.
+     * Arguments are an optional port and data file.
+     */
+    public static void main(String[] args) throws IOException {
+        if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MushroomTable table;
+        try {
+            table = args.length > 1 ? DataManager.LoadTable(args[1]) : DataManager.LoadTable();
+        } catch(IOException e) {
+            System.err.println("Could not read the data file: " + e);
+            System.exit(1);
+            return;
+        }
+
+        Classifier classifier = FlatDecisionTree.of(new C45(table, Mushroom.getAttributeList()).getDecisionTree());
+        ScoringServer server = new ScoringServer(classifier, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            System.out.print(server.getStats());
+        }));
+        server.start();
+        System.out.println("Trained on " + table.size() + " rows, scoring on http://localhost:" + server.getPort() + "/classify");
+    }
+}